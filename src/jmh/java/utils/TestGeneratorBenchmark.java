@@ -0,0 +1,54 @@
+package utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction du générateur (scan des step definitions) et génération du contenu d'un feature.
+ * etapesSupplementaires : taille du catalogue de steps parcouru par l'index inversé.
+ * Lancement : mvn -P benchmarks test-compile exec:exec
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TestGeneratorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Generateur {
+        @Param({
+                "recherche histoire",
+                "vérifier la page d'accueil puis cliquer sur le bouton recherche et saisir un terme"
+        })
+        public String description;
+
+        // Steps synthétiques ajoutés aux step definitions du projet
+        @Param({"0", "5000"})
+        public int etapesSupplementaires;
+
+        TestGenerator generator;
+
+        @Setup(Level.Trial)
+        public void preparer() {
+            generator = new TestGenerator();
+            String[] types = {"Given", "When", "Then"};
+            for (int i = 0; i < etapesSupplementaires; i++) {
+                generator.addCustomStep(types[i % types.length],
+                        "Je consulte l'émission " + i + " de la station " + (i % 7) + " et je vérifie l'épisode " + (i % 31));
+            }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public TestGenerator construction() {
+        return new TestGenerator();
+    }
+
+    @Benchmark
+    public String generateFeatureFile(Generateur etat) {
+        return etat.generator.buildFeatureContent(etat.description);
+    }
+}
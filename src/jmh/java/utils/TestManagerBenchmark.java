@@ -0,0 +1,132 @@
+package utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemins appelés à chaque étape : enregistrement, rapport complet et classification des erreurs.
+ * Lancement : mvn -P benchmarks test-compile exec:exec
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TestManagerBenchmark {
+
+    private static final String[] MESSAGES_ERREUR = {
+            "no such element: Unable to locate element: {\"method\":\"xpath\"}",
+            "Element not found after 15 seconds",
+            "element click intercepted: Element is not clickable at point (120, 40)",
+            "Expected condition failed: waiting for visibility (tried for 10 second(s)) timeout",
+            "java.lang.AssertionError",
+            null
+    };
+
+    @State(Scope.Thread)
+    public static class Enregistrement {
+        @Param({"1000", "10000", "100000"})
+        public int etapes;
+
+        InfosEtape[] donnees;
+
+        @Setup(Level.Trial)
+        public void preparer() {
+            donnees = genererEtapes(etapes);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Rapport {
+        @Param({"100", "1000", "10000"})
+        public int etapes;
+
+        TestManager manager;
+
+        @Setup(Level.Trial)
+        public void preparer() {
+            manager = new TestManager(false);
+            for (InfosEtape etape : genererEtapes(etapes)) {
+                manager.ajouterInfosTest(etape);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Classification {
+        TestManager manager;
+        InfosEtape[] echecs;
+
+        @Setup(Level.Trial)
+        public void preparer() {
+            manager = new TestManager(false);
+            echecs = new InfosEtape[MESSAGES_ERREUR.length];
+            for (int i = 0; i < echecs.length; i++) {
+                echecs[i] = new InfosEtape("Scénario", "Clic sur Recherche", "ECHEC", "Web",
+                        null, null, null, MESSAGES_ERREUR[i] != null ? MESSAGES_ERREUR[i] : "erreur", LocalDateTime.now(), 0);
+            }
+        }
+    }
+
+    // Coût total d'enregistrement de N étapes dans un TestManager neuf (mode complet, sans streaming)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public TestManager ajouterInfosTest(Enregistrement etat) {
+        TestManager manager = new TestManager(false);
+        for (InfosEtape etape : etat.donnees) {
+            manager.ajouterInfosTest(etape);
+        }
+        return manager;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void genererRapport(Rapport etat) throws IOException {
+        etat.manager.ecrireRapport(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void getErrorType(Blackhole bh) {
+        for (String message : MESSAGES_ERREUR) {
+            bh.consume(TestManager.getErrorType(message));
+        }
+    }
+
+    @Benchmark
+    public void analyzeError(Classification etat) {
+        for (InfosEtape echec : etat.echecs) {
+            etat.manager.analyzeError(echec);
+        }
+    }
+
+    // Cinq scénarios de la forme du feature Radio France, 20 % d'échecs
+    static InfosEtape[] genererEtapes(int nombre) {
+        String[] noms = {
+                "Début du Test", "Lancement de l'Application", "Gestion des Popups et Cookies",
+                "Vérification de la page d'accueil", "Clic sur Recherche", "Saisie recherche",
+                "Vérification résultats", "Fin du Test"
+        };
+        LocalDateTime debut = LocalDateTime.now();
+        InfosEtape[] etapes = new InfosEtape[nombre];
+        for (int i = 0; i < nombre; i++) {
+            boolean echec = i % 5 == 4;
+            etapes[i] = new InfosEtape(
+                    "Scénario " + (i / noms.length),
+                    noms[i % noms.length],
+                    echec ? "ECHEC" : "REUSSI",
+                    "Web",
+                    "Résultat attendu " + i,
+                    echec ? null : "Résultat réel " + i,
+                    "https://www.radiofrance.fr/recherche?term=" + i,
+                    echec ? MESSAGES_ERREUR[i % MESSAGES_ERREUR.length] : null,
+                    debut.plusNanos(i * 1_000_000L),
+                    (50 + i % 400) * 1_000_000L);
+        }
+        return etapes;
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.etapes;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Écrit, à la compilation des tests, l'index des step definitions Cucumber (mot-clé, expression, méthode)
+ * dans {@value #RESSOURCE} : TestGenerator le lit sans scanner le classpath.
+ * Une ligne par step : motCle TAB expression TAB classe#méthode.
+ */
+@SupportedAnnotationTypes({
+        "io.cucumber.java.en.Given",
+        "io.cucumber.java.en.When",
+        "io.cucumber.java.en.Then",
+        "io.cucumber.java.en.And"
+})
+@SupportedSourceVersion(SourceVersion.RELEASE_17)
+public class IndexEtapesProcessor extends AbstractProcessor {
+    public static final String RESSOURCE = "META-INF/etapes/index-etapes.tsv";
+
+    private final List<String> lignes = new ArrayList<>();
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (TypeElement annotation : annotations) {
+            String motCle = annotation.getSimpleName().toString();
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (!(element instanceof ExecutableElement)) continue;
+                String expression = valeur(element, annotation);
+                if (expression == null) continue;
+                TypeElement classe = (TypeElement) element.getEnclosingElement();
+                lignes.add(motCle + "\t" + echapper(expression) + "\t"
+                        + classe.getQualifiedName() + "#" + element.getSimpleName());
+            }
+        }
+        if (round.processingOver() && !lignes.isEmpty()) {
+            ecrireIndex();
+        }
+        return false;
+    }
+
+    private static String valeur(Element element, TypeElement annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (!mirror.getAnnotationType().asElement().equals(annotation)) continue;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entree : mirror.getElementValues().entrySet()) {
+                if (entree.getKey().getSimpleName().contentEquals("value")) {
+                    return String.valueOf(entree.getValue().getValue());
+                }
+            }
+        }
+        return null;
+    }
+
+    private void ecrireIndex() {
+        try {
+            FileObject fichier = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", RESSOURCE);
+            try (Writer writer = fichier.openWriter()) {
+                for (String ligne : lignes) {
+                    writer.write(ligne);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Index des steps non écrit: " + e.getMessage());
+        }
+    }
+
+    // Tabulations et retours à la ligne ne doivent pas casser le format ligne/colonne
+    static String echapper(String texte) {
+        return texte.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+}
@@ -2,83 +2,445 @@ package pages;
 
 import io.appium.java_client.AppiumBy;
 import io.appium.java_client.AppiumDriver;
-import io.appium.java_client.PerformsTouchActions;
-import io.appium.java_client.TouchAction;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.ios.IOSDriver;
-import io.appium.java_client.touch.WaitOptions;
-import io.appium.java_client.touch.offset.PointOption;
 import org.openqa.selenium.*;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
+import utils.AttentesAdaptatives;
+import utils.CacheElements;
+import utils.ConfigReader;
+import utils.InterceptionReseau;
 
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class BasePage {
+    // Attentes conditionnelles : le polling commence court puis s'espace (attente.polling.*)
+    private static final long POLLING_INITIAL_MS = ConfigReader.getIntProperty("attente.polling.initial.ms", 50);
+    private static final long POLLING_MAX_MS = ConfigReader.getIntProperty("attente.polling.max.ms", 500);
+    private static final double POLLING_FACTEUR = Double.parseDouble(ConfigReader.getProperty("attente.polling.facteur", "1.5"));
+    private static final AtomicLong tempsEconomiseNanos = new AtomicLong();
+
+    // Premier candidat visible parmi plusieurs sélecteurs, évalué en un seul aller-retour
+    private static final String SCRIPT_PREMIER_VISIBLE =
+            "var s = arguments[0];" +
+            "for (var i = 0; i < s.length; i++) {" +
+            "  var t = s[i][0], v = s[i][1], el = null;" +
+            "  try {" +
+            "    if (t === 'xpath') el = document.evaluate(v, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;" +
+            "    else el = document.querySelector(v);" +
+            "  } catch (e) {}" +
+            "  if (el && el.getClientRects().length > 0) return i;" +
+            "}" +
+            "return -1;";
+
+    // Requête groupée : [nom, type, valeur, propriétés] par élément -> {url, titre, elements: {nom: {propriété: valeur}}}
+    private static final String SCRIPT_REQUETE_DOM =
+            "var q = arguments[0], r = {url: location.href, titre: document.title, elements: {}};" +
+            "for (var i = 0; i < q.length; i++) {" +
+            "  var t = q[i][1], v = q[i][2], tous = [];" +
+            "  try {" +
+            "    if (t === 'xpath') { var x = document.evaluate(v, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);" +
+            "      for (var j = 0; j < x.snapshotLength; j++) tous.push(x.snapshotItem(j)); }" +
+            "    else tous = Array.prototype.slice.call(document.querySelectorAll(v));" +
+            "  } catch (e) {}" +
+            "  if (tous.length === 0) continue;" +
+            "  var el = tous[0], o = {};" +
+            "  for (var k = 0; k < q[i][3].length; k++) {" +
+            "    var p = q[i][3][k];" +
+            "    if (p === 'visible') o[p] = el.getClientRects().length > 0 && getComputedStyle(el).visibility !== 'hidden';" +
+            "    else if (p === 'texte') o[p] = el.innerText;" +
+            "    else if (p === 'valeur') o[p] = el.value === undefined ? null : el.value;" +
+            "    else if (p === 'nombre') o[p] = tous.length;" +
+            "    else if (p.charAt(0) === '@') o[p] = el.getAttribute(p.substring(1));" +
+            "  }" +
+            "  r.elements[q[i][0]] = o;" +
+            "}" +
+            "return r;";
+
+    private static final Duration TIMEOUT_PAR_DEFAUT = Duration.ofSeconds(15);
+
     protected WebDriver driver;
     protected WebDriverWait wait;
 
     public BasePage(WebDriver driver) {
         this.driver = driver;
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(15));
+        this.wait = new WebDriverWait(driver, TIMEOUT_PAR_DEFAUT);
     }
 
     // Ortak metodlar
     protected WebElement waitForElementClickable(By locator) {
-        return wait.until(ExpectedConditions.elementToBeClickable(locator));
+        return attendreAdaptatif(locator, ExpectedConditions.elementToBeClickable(locator));
     }
 
     protected WebElement waitForElementVisible(By locator) {
-        return wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+        return attendreAdaptatif(locator, ExpectedConditions.visibilityOfElementLocated(locator));
+    }
+
+    /**
+     * Attend qu'un élément soit cliquable, avec le timeout et le polling appris pour ce locator.
+     */
+    public WebElement attendreCliquable(By locator, Duration timeoutParDefaut) {
+        return attendreAdaptatif(locator, ExpectedConditions.elementToBeClickable(locator), timeoutParDefaut);
+    }
+
+    private WebElement attendreAdaptatif(By locator, ExpectedCondition<WebElement> condition) {
+        return attendreAdaptatif(locator, condition, TIMEOUT_PAR_DEFAUT);
+    }
+
+    // Timeout et polling issus de l'historique du locator ; la durée réelle enrichit cet historique.
+    // Un timeout appris trop court est rattrapé par une seconde attente au timeout par défaut de l'appelant,
+    // et un échec est enregistré (échantillon censuré) pour que l'historique remonte le timeout.
+    private WebElement attendreAdaptatif(By locator, ExpectedCondition<WebElement> condition, Duration timeoutParDefaut) {
+        AttentesAdaptatives attentes = AttentesAdaptatives.getInstance();
+        Duration timeout = attentes.timeout(locator, timeoutParDefaut);
+        Duration polling = attentes.polling(locator);
+        long debut = System.nanoTime();
+        try {
+            WebElement element = new WebDriverWait(driver, timeout, polling).until(condition);
+            attentes.enregistrer(locator, System.nanoTime() - debut);
+            return element;
+        } catch (TimeoutException e) {
+            Duration repli = attentes.timeoutParDefaut(timeoutParDefaut);
+            if (timeout.compareTo(repli) < 0) {
+                try {
+                    WebElement element = new WebDriverWait(driver, repli, polling).until(condition);
+                    attentes.enregistrer(locator, System.nanoTime() - debut);
+                    return element;
+                } catch (TimeoutException repliEchoue) {
+                    attentes.enregistrerDepassement(locator, System.nanoTime() - debut);
+                    throw repliEchoue;
+                }
+            }
+            attentes.enregistrerDepassement(locator, System.nanoTime() - debut);
+            throw e;
+        }
     }
 
     protected void click(By locator) {
-        waitForElementClickable(locator).click();
+        surElement(locator, true, element -> {
+            element.click();
+            return null;
+        });
     }
 
     protected void sendKeys(By locator, String text) {
-        WebElement element = waitForElementVisible(locator);
-        element.clear();
-        element.sendKeys(text);
+        surElement(locator, false, element -> {
+            element.clear();
+            element.sendKeys(text);
+            return null;
+        });
     }
 
     protected String getText(By locator) {
-        return waitForElementVisible(locator).getText();
+        return surElement(locator, false, WebElement::getText);
     }
 
     protected boolean isElementDisplayed(By locator) {
+        CacheElements cache = CacheElements.pour(driver);
+        WebElement enCache = cache.get(locator);
+        if (enCache != null) {
+            try {
+                return enCache.isDisplayed();
+            } catch (StaleElementReferenceException e) {
+                cache.invalider(locator);
+            }
+        }
         try {
-            return driver.findElement(locator).isDisplayed();
+            WebElement element = driver.findElement(locator);
+            cache.put(locator, element);
+            return element.isDisplayed();
         } catch (NoSuchElementException e) {
             return false;
         }
     }
 
+    /**
+     * Applique l'action à l'élément en cache si possible, sinon (absent, périmé, pas encore interactif)
+     * à l'élément résolu par une attente complète, qui est alors mis en cache.
+     */
+    private <T> T surElement(By locator, boolean cliquable, Function<WebElement, T> action) {
+        CacheElements cache = CacheElements.pour(driver);
+        WebElement enCache = cache.get(locator);
+        if (enCache != null) {
+            try {
+                return action.apply(enCache);
+            } catch (StaleElementReferenceException e) {
+                cache.invalider(locator);
+            } catch (ElementNotInteractableException e) {
+                // élément encore masqué ou recouvert : l'attente complète s'en charge
+            }
+        }
+        WebElement element = cliquable ? waitForElementClickable(locator) : waitForElementVisible(locator);
+        cache.put(locator, element);
+        return action.apply(element);
+    }
+
+    /**
+     * À appeler après une navigation : les éléments résolus sur la page précédente ne sont plus réutilisés.
+     */
+    public static void nouvellePage(WebDriver driver) {
+        if (driver != null) {
+            CacheElements.pour(driver).nouvellePage();
+            InterceptionReseau reseau = InterceptionReseau.pour(driver);
+            if (reseau != null) {
+                reseau.nouvellePage();
+            }
+        }
+    }
+
 
     protected void swipeVertical(double startPercentage, double endPercentage, double anchorPercentage) {
         if (driver instanceof AppiumDriver) {
-            AppiumDriver appiumDriver = (AppiumDriver) driver;
-            Dimension size = driver.manage().window().getSize();
-            int anchor = (int) (size.width * anchorPercentage);
-            int startPoint = (int) (size.height * startPercentage);
-            int endPoint = (int) (size.height * endPercentage);
-
-            new TouchAction((PerformsTouchActions) appiumDriver)
-                    .press(PointOption.point(anchor, startPoint))
-                    .waitAction(WaitOptions.waitOptions(Duration.ofMillis(1000)))
-                    .moveTo(PointOption.point(anchor, endPoint))
-                    .release().perform();
+            gestes().glisserVertical(startPercentage, endPercentage, anchorPercentage).executer();
         }
     }
 
     protected void tapByCoordinates(int x, int y) {
         if (driver instanceof AppiumDriver) {
-            AppiumDriver appiumDriver = (AppiumDriver) driver;
-            new TouchAction((PerformsTouchActions) appiumDriver)
-                    .tap(PointOption.point(x, y))
-                    .perform();
+            gestes().tap(x, y).executer();
+        }
+    }
+
+    /**
+     * Gestes W3C à enchaîner puis envoyer en un seul appel ({@link Gestes#executer()}).
+     */
+    protected Gestes gestes() {
+        return new Gestes(driver);
+    }
+
+    /**
+     * Fait défiler vers le bas jusqu'à ce que l'élément soit visible, au plus {@code glissementsMax} fois.
+     * Après chaque glissement, l'élément est guetté pendant gestes.stabilisation.ms (fin de l'inertie) :
+     * la boucle s'arrête dès qu'il apparaît.
+     *
+     * @return true si l'élément est visible
+     */
+    protected boolean defilerJusquA(By locator, int glissementsMax) {
+        BooleanSupplier visible = () -> {
+            List<WebElement> elements = driver.findElements(locator);
+            return !elements.isEmpty() && elements.get(0).isDisplayed();
+        };
+        if (visible.getAsBoolean()) return true;
+        Duration stabilisation = Duration.ofMillis(ConfigReader.getIntProperty("gestes.stabilisation.ms", 400));
+        Gestes gestes = gestes();
+        for (int i = 0; i < glissementsMax; i++) {
+            gestes.glisserVertical(0.7, 0.3, 0.5).executer();
+            if (attendre(visible, stabilisation)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Attend que la condition soit vraie, au plus {@code timeout}. Si l'attente remplace un délai fixe
+     * ({@code delaiFixeRemplace}), le temps gagné par rapport à ce délai est comptabilisé.
+     *
+     * @return true si la condition est devenue vraie avant le timeout
+     */
+    public boolean attendre(BooleanSupplier condition, Duration timeout, Duration delaiFixeRemplace) {
+        long debut = System.nanoTime();
+        long limite = debut + timeout.toNanos();
+        long pause = POLLING_INITIAL_MS;
+        boolean satisfaite = false;
+        try {
+            while (true) {
+                try {
+                    satisfaite = condition.getAsBoolean();
+                } catch (WebDriverException e) {
+                    // élément périmé ou page en cours de chargement : on réessaie
+                    satisfaite = false;
+                }
+                long restant = limite - System.nanoTime();
+                if (satisfaite || restant <= 0) break;
+                Thread.sleep(Math.min(pause, Math.max(1, restant / 1_000_000)));
+                pause = Math.min(POLLING_MAX_MS, (long) (pause * POLLING_FACTEUR));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long economie = delaiFixeRemplace.toNanos() - (System.nanoTime() - debut);
+        if (economie > 0) {
+            tempsEconomiseNanos.addAndGet(economie);
+        }
+        return satisfaite;
+    }
+
+    public boolean attendre(BooleanSupplier condition, Duration timeout) {
+        return attendre(condition, timeout, Duration.ZERO);
+    }
+
+    public boolean attendreUrl(Predicate<String> condition, Duration timeout, Duration delaiFixeRemplace) {
+        return attendre(() -> condition.test(driver.getCurrentUrl()), timeout, delaiFixeRemplace);
+    }
+
+    public boolean attendreUrl(Predicate<String> condition, Duration timeout) {
+        return attendreUrl(condition, timeout, Duration.ZERO);
+    }
+
+    /**
+     * DOM stable : document chargé et nombre d'éléments inchangé entre deux lectures successives.
+     */
+    public boolean attendreDomStable(Duration timeout, Duration delaiFixeRemplace) {
+        long[] taillePrecedente = {-1};
+        return attendre(() -> {
+            Object taille = ((JavascriptExecutor) driver).executeScript(
+                    "return document.readyState === 'complete' ? document.getElementsByTagName('*').length : -1;");
+            long actuelle = taille instanceof Number ? ((Number) taille).longValue() : -1;
+            boolean stable = actuelle >= 0 && actuelle == taillePrecedente[0];
+            taillePrecedente[0] = actuelle;
+            return stable;
+        }, timeout, delaiFixeRemplace);
+    }
+
+    public boolean attendreDomStable(Duration timeout) {
+        return attendreDomStable(timeout, Duration.ZERO);
+    }
+
+    /**
+     * Élément absent du DOM ou masqué.
+     */
+    public boolean attendreDisparition(By locator, Duration timeout, Duration delaiFixeRemplace) {
+        return attendre(() -> {
+            List<WebElement> elements = driver.findElements(locator);
+            return elements.isEmpty() || !elements.get(0).isDisplayed();
+        }, timeout, delaiFixeRemplace);
+    }
+
+    public boolean attendreDisparition(By locator, Duration timeout) {
+        return attendreDisparition(locator, timeout, Duration.ZERO);
+    }
+
+    /**
+     * Attend le premier des sélecteurs qui devient visible. Sur le web, tous les candidats sont testés
+     * dans un seul executeScript par itération ; sinon (mobile, sélecteur non traduisible) un findElements
+     * par candidat.
+     *
+     * @return le sélecteur trouvé, ou null si aucun n'apparaît avant le timeout
+     */
+    public By attendrePremierParmi(Duration timeout, By... locators) {
+        List<List<String>> selecteursJs = isWeb() ? traduireEnJs(locators) : null;
+        int[] trouve = {-1};
+        attendre(() -> {
+            trouve[0] = selecteursJs != null ? premierVisibleJs(selecteursJs) : premierVisible(locators);
+            return trouve[0] >= 0;
+        }, timeout);
+        return trouve[0] >= 0 ? locators[trouve[0]] : null;
+    }
+
+    /**
+     * Lit toutes les propriétés demandées en un aller-retour (un executeScript) sur le web. Sur mobile,
+     * ou si un sélecteur n'a pas d'équivalent DOM, les propriétés sont lues élément par élément.
+     */
+    @SuppressWarnings("unchecked")
+    public ResultatDom interroger(RequeteDom requete) {
+        List<RequeteDom.Element> elements = requete.getElements();
+        List<List<Object>> selecteursJs = isWeb() ? new ArrayList<>() : null;
+        for (RequeteDom.Element element : elements) {
+            List<String> selecteur = selecteursJs != null ? traduireEnJs(element.locator) : null;
+            if (selecteur == null) {
+                selecteursJs = null;
+                break;
+            }
+            selecteursJs.add(List.of(element.nom, selecteur.get(0), selecteur.get(1), element.proprietes));
+        }
+
+        if (selecteursJs != null) {
+            Map<String, Object> resultat = (Map<String, Object>) ((JavascriptExecutor) driver)
+                    .executeScript(SCRIPT_REQUETE_DOM, selecteursJs);
+            return new ResultatDom((String) resultat.get("url"), (String) resultat.get("titre"),
+                    (Map<String, Map<String, Object>>) resultat.get("elements"));
+        }
+        return interrogerParElement(elements);
+    }
+
+    private ResultatDom interrogerParElement(List<RequeteDom.Element> elements) {
+        Map<String, Map<String, Object>> valeurs = new LinkedHashMap<>();
+        for (RequeteDom.Element element : elements) {
+            List<WebElement> trouves = driver.findElements(element.locator);
+            if (trouves.isEmpty()) continue;
+            WebElement premier = trouves.get(0);
+            Map<String, Object> proprietes = new LinkedHashMap<>();
+            for (String propriete : element.proprietes) {
+                switch (propriete) {
+                    case RequeteDom.VISIBLE:
+                        proprietes.put(propriete, premier.isDisplayed());
+                        break;
+                    case RequeteDom.TEXTE:
+                        proprietes.put(propriete, premier.getText());
+                        break;
+                    case RequeteDom.VALEUR:
+                        proprietes.put(propriete, premier.getAttribute("value"));
+                        break;
+                    case RequeteDom.NOMBRE:
+                        proprietes.put(propriete, trouves.size());
+                        break;
+                    default:
+                        proprietes.put(propriete, premier.getAttribute(propriete.substring(1)));
+                }
+            }
+            valeurs.put(element.nom, proprietes);
+        }
+        return isWeb()
+                ? new ResultatDom(driver.getCurrentUrl(), driver.getTitle(), valeurs)
+                : new ResultatDom(null, null, valeurs);
+    }
+
+    private int premierVisibleJs(List<List<String>> selecteursJs) {
+        Object index = ((JavascriptExecutor) driver).executeScript(SCRIPT_PREMIER_VISIBLE, selecteursJs);
+        return index instanceof Number ? ((Number) index).intValue() : -1;
+    }
+
+    private int premierVisible(By[] locators) {
+        for (int i = 0; i < locators.length; i++) {
+            List<WebElement> elements = driver.findElements(locators[i]);
+            if (!elements.isEmpty() && elements.get(0).isDisplayed()) return i;
         }
+        return -1;
+    }
+
+    // [type, valeur] pour les scripts ; null si un sélecteur n'a pas d'équivalent DOM direct
+    private static List<List<String>> traduireEnJs(By[] locators) {
+        List<List<String>> selecteurs = new ArrayList<>();
+        for (By locator : locators) {
+            List<String> selecteur = traduireEnJs(locator);
+            if (selecteur == null) return null;
+            selecteurs.add(selecteur);
+        }
+        return selecteurs;
+    }
+
+    // Paramètres W3C du sélecteur (using / value) : By.id, By.name et By.className y sont déjà des sélecteurs CSS
+    private static List<String> traduireEnJs(By locator) {
+        if (!(locator instanceof By.Remotable)) return null;
+        By.Remotable.Parameters parametres = ((By.Remotable) locator).getRemoteParameters();
+        if (!(parametres.value() instanceof String)) return null;
+        String valeur = (String) parametres.value();
+        switch (parametres.using()) {
+            case "xpath":
+                return List.of("xpath", valeur);
+            case "css selector":
+            case "tag name":
+                return List.of("css", valeur);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Temps total gagné sur les délais fixes remplacés par des attentes conditionnelles, pour l'exécution.
+     */
+    public static long getTempsEconomiseMillis() {
+        return tempsEconomiseNanos.get() / 1_000_000;
     }
 
     // Web-spesifik metodlar
@@ -0,0 +1,107 @@
+package pages;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.interactions.Interactive;
+import org.openqa.selenium.interactions.Pause;
+import org.openqa.selenium.interactions.PointerInput;
+import org.openqa.selenium.interactions.Sequence;
+import utils.ConfigReader;
+
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * Gestes tactiles en W3C Actions (PointerInput / Sequence), en remplacement de TouchAction.
+ * Les gestes s'enchaînent sur un même doigt et partent en une seule requête à {@link #executer()} :
+ * <pre>
+ * new Gestes(driver).tap(100, 200).pause(Duration.ofMillis(300)).glisserVertical(0.8, 0.2, 0.5).executer();
+ * </pre>
+ * La durée d'un glissement découle de sa longueur et de la vitesse (gestes.vitesse.px.s) : plus lent,
+ * l'écran défile moins par inertie ; plus rapide, il défile plus loin.
+ */
+public class Gestes {
+    private static final double VITESSE_PAR_DEFAUT = Double.parseDouble(ConfigReader.getProperty("gestes.vitesse.px.s", "2500"));
+    private static final Duration DUREE_MIN = Duration.ofMillis(50);
+    private static final Duration APPUI_TAP = Duration.ofMillis(50);
+
+    private final WebDriver driver;
+    private final PointerInput doigt = new PointerInput(PointerInput.Kind.TOUCH, "doigt");
+    private Sequence sequence;
+    private int gestes;
+    private Dimension ecran;
+
+    public Gestes(WebDriver driver) {
+        this.driver = driver;
+        this.sequence = new Sequence(doigt, 0);
+    }
+
+    public Gestes tap(int x, int y) {
+        sequence.addAction(doigt.createPointerMove(Duration.ZERO, PointerInput.Origin.viewport(), x, y))
+                .addAction(doigt.createPointerDown(PointerInput.MouseButton.LEFT.asArg()))
+                .addAction(new Pause(doigt, APPUI_TAP))
+                .addAction(doigt.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+        gestes++;
+        return this;
+    }
+
+    public Gestes glisser(Point depart, Point arrivee) {
+        return glisser(depart, arrivee, VITESSE_PAR_DEFAUT);
+    }
+
+    /**
+     * @param vitessePxParS vitesse du doigt, en pixels par seconde
+     */
+    public Gestes glisser(Point depart, Point arrivee, double vitessePxParS) {
+        double distance = Math.hypot(arrivee.getX() - depart.getX(), arrivee.getY() - depart.getY());
+        Duration duree = Duration.ofMillis((long) (distance / vitessePxParS * 1000));
+        sequence.addAction(doigt.createPointerMove(Duration.ZERO, PointerInput.Origin.viewport(), depart.getX(), depart.getY()))
+                .addAction(doigt.createPointerDown(PointerInput.MouseButton.LEFT.asArg()))
+                .addAction(doigt.createPointerMove(duree.compareTo(DUREE_MIN) < 0 ? DUREE_MIN : duree,
+                        PointerInput.Origin.viewport(), arrivee.getX(), arrivee.getY()))
+                .addAction(doigt.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+        gestes++;
+        return this;
+    }
+
+    /**
+     * Glissement vertical en proportions de l'écran (0 = haut, 1 = bas), sur la colonne {@code ancre}.
+     */
+    public Gestes glisserVertical(double debut, double fin, double ancre) {
+        return glisserVertical(debut, fin, ancre, VITESSE_PAR_DEFAUT);
+    }
+
+    public Gestes glisserVertical(double debut, double fin, double ancre, double vitessePxParS) {
+        Dimension taille = ecran();
+        int x = (int) (taille.width * ancre);
+        return glisser(new Point(x, (int) (taille.height * debut)), new Point(x, (int) (taille.height * fin)), vitessePxParS);
+    }
+
+    public Gestes pause(Duration duree) {
+        sequence.addAction(new Pause(doigt, duree));
+        return this;
+    }
+
+    public int getNombreGestes() {
+        return gestes;
+    }
+
+    /**
+     * Envoie tous les gestes accumulés en un seul appel ; l'instance peut ensuite être réutilisée.
+     */
+    public void executer() {
+        if (gestes == 0) return;
+        ((Interactive) driver).perform(Collections.singletonList(sequence));
+        sequence = new Sequence(doigt, 0);
+        gestes = 0;
+    }
+
+    // Taille de l'écran lue une fois par instance
+    private Dimension ecran() {
+        if (ecran == null) {
+            ecran = driver.manage().window().getSize();
+        }
+        return ecran;
+    }
+}
@@ -0,0 +1,125 @@
+package pages;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import utils.ConfigReader;
+import utils.ServeurWebDriverSimule;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static utils.ServeurWebDriverSimule.valeur;
+
+/**
+ * Gestes W3C contre un serveur WebDriver simulé (écran 1000 x 2000) : requêtes /actions envoyées,
+ * source tactile, durée des glissements.
+ */
+public class GestesTest {
+    private static final double VITESSE = Double.parseDouble(ConfigReader.getProperty("gestes.vitesse.px.s", "2500"));
+
+    private final Json json = new Json();
+    private final List<String> actions = Collections.synchronizedList(new ArrayList<>());
+    // Nombre de glissements après lequel l'élément cherché apparaît à l'écran
+    private volatile int visibleApres = Integer.MAX_VALUE;
+    private ServeurWebDriverSimule stub;
+    private RemoteWebDriver driver;
+
+    @Before
+    public void demarrer() throws Exception {
+        stub = new ServeurWebDriverSimule(
+                (methode, chemin, requete) -> "/session".equals(chemin)
+                        ? valeur("{\"sessionId\":\"s1\",\"capabilities\":{\"platformName\":\"android\"}}") : null,
+                (methode, chemin, requete) -> chemin.endsWith("/window/rect")
+                        ? valeur("{\"x\":0,\"y\":0,\"width\":1000,\"height\":2000}") : null,
+                (methode, chemin, requete) -> {
+                    if (chemin.endsWith("/actions") && "POST".equals(methode)) {
+                        actions.add(requete);
+                    }
+                    return null;
+                },
+                (methode, chemin, requete) -> !chemin.endsWith("/elements") ? null
+                        : actions.size() >= visibleApres ? valeur("[{\"element-6066-11e4-a52e-4f735466cecf\":\"e1\"}]") : valeur("[]"),
+                // isDisplayed (atome W3C)
+                (methode, chemin, requete) -> chemin.endsWith("/execute/sync") ? valeur("true") : null);
+        driver = new RemoteWebDriver(new URL(stub.getUrl()), new ImmutableCapabilities("platformName", "android"));
+    }
+
+    @After
+    public void arreter() {
+        driver.quit();
+        stub.close();
+    }
+
+    @Test
+    public void gestesEnchainesEnUneSeuleRequete() {
+        Gestes gestes = new Gestes(driver).tap(100, 200).pause(Duration.ofMillis(300)).glisserVertical(0.8, 0.2, 0.5);
+        assertEquals(2, gestes.getNombreGestes());
+        gestes.executer();
+
+        assertEquals(1, actions.size());
+        List<Map<String, Object>> sources = sources(actions.get(0));
+        assertEquals(1, sources.size());
+        assertEquals("pointer", sources.get(0).get("type"));
+        assertEquals(Map.of("pointerType", "touch"), sources.get(0).get("parameters"));
+
+        // 1600 -> 400 px sur la colonne du milieu
+        assertEquals(List.of((long) (1200 / VITESSE * 1000)), dureesDeplacements(sources.get(0)));
+        assertEquals(0, gestes.getNombreGestes());
+    }
+
+    @Test
+    public void dureeDuGlissementSelonLaVitesse() {
+        new Gestes(driver).glisserVertical(0.8, 0.2, 0.5, 600).executer();
+
+        assertEquals(1, actions.size());
+        assertEquals(List.of(2000L), dureesDeplacements(sources(actions.get(0)).get(0)));
+    }
+
+    @Test
+    public void sansGesteAucuneRequete() {
+        new Gestes(driver).executer();
+        assertTrue(actions.isEmpty());
+    }
+
+    @Test
+    public void defilerJusquAElementVisible() {
+        visibleApres = 3;
+        assertTrue(new BasePage(driver).defilerJusquA(By.id("episode"), 5));
+        assertEquals(3, actions.size());
+    }
+
+    @Test
+    public void defilerJusquAAbandonneApresLeMaximum() {
+        assertFalse(new BasePage(driver).defilerJusquA(By.id("episode"), 2));
+        assertEquals(2, actions.size());
+    }
+
+    private List<Map<String, Object>> sources(String requete) {
+        Map<String, Object> corps = json.toType(requete, Json.MAP_TYPE);
+        return liste(corps.get("actions"));
+    }
+
+    // Durées des déplacements du doigt pendant un appui (glissements)
+    private static List<Long> dureesDeplacements(Map<String, Object> source) {
+        List<Long> durees = new ArrayList<>();
+        for (Map<String, Object> action : liste(source.get("actions"))) {
+            Object duree = action.get("duration");
+            if ("pointerMove".equals(action.get("type")) && duree instanceof Number && ((Number) duree).longValue() > 0) {
+                durees.add(((Number) duree).longValue());
+            }
+        }
+        return durees;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> liste(Object valeur) {
+        return valeur instanceof List ? (List<Map<String, Object>>) valeur : Collections.emptyList();
+    }
+}
@@ -15,17 +15,31 @@ public class RadioPage extends BasePage {
     }
 
     public void effectuerRecherche(String termeRecherche) {
-        By champRecherche = OS.isAndroid() ?
+        sendKeys(champRecherche(), termeRecherche);
+    }
+
+    public void cliquerBtnRechercher() {
+        click(btnRechercher());
+    }
+
+    /**
+     * URL, titre et visibilité du bouton de recherche lus en une seule requête.
+     */
+    public ResultatDom lireEtatPage() {
+        return interroger(new RequeteDom()
+                .element("btnRechercher", btnRechercher(), RequeteDom.VISIBLE));
+    }
+
+    private static By champRecherche() {
+        return OS.isAndroid() ?
                 AppiumBy.androidUIAutomator("new UiSelector().text(\"Recherche\")") :
                 By.xpath("//input[@aria-label='Rechercher un podcast, un épisode, une personnalité...']");
-        sendKeys(champRecherche, termeRecherche);
     }
 
-    public void cliquerBtnRechercher() {
-        By btnRechercher = OS.isAndroid() ?
+    private static By btnRechercher() {
+        return OS.isAndroid() ?
                 AppiumBy.accessibilityId("Recherche") :
                 By.xpath("//span[normalize-space()='Rechercher']");
-        getCurrentDriver().findElement(btnRechercher).click();
     }
 
 }
@@ -0,0 +1,55 @@
+package pages;
+
+import org.openqa.selenium.By;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ensemble de propriétés DOM à lire en un seul aller-retour, via {@link BasePage#interroger(RequeteDom)}.
+ * L'URL et le titre de la page sont toujours lus.
+ * <pre>
+ * ResultatDom r = page.interroger(new RequeteDom()
+ *         .element("bouton", By.id("ok"), RequeteDom.VISIBLE, RequeteDom.TEXTE, RequeteDom.attribut("href")));
+ * </pre>
+ */
+public class RequeteDom {
+    public static final String VISIBLE = "visible";
+    public static final String TEXTE = "texte";
+    public static final String VALEUR = "valeur";
+    public static final String NOMBRE = "nombre";
+
+    private final List<Element> elements = new ArrayList<>();
+
+    static class Element {
+        final String nom;
+        final By locator;
+        final List<String> proprietes;
+
+        Element(String nom, By locator, List<String> proprietes) {
+            this.nom = nom;
+            this.locator = locator;
+            this.proprietes = proprietes;
+        }
+    }
+
+    /**
+     * Attribut HTML à lire, ex. attribut("href").
+     */
+    public static String attribut(String nom) {
+        return "@" + nom;
+    }
+
+    /**
+     * Ajoute un élément à lire ; sans propriété, seule son existence est lue.
+     */
+    public RequeteDom element(String nom, By locator, String... proprietes) {
+        elements.add(new Element(nom, locator, List.of(proprietes)));
+        return this;
+    }
+
+    List<Element> getElements() {
+        return Collections.unmodifiableList(elements);
+    }
+}
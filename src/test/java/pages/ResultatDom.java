@@ -0,0 +1,67 @@
+package pages;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Résultat d'une {@link RequeteDom} : propriétés lues par élément, avec l'URL et le titre de la page.
+ * Une propriété non demandée, ou d'un élément absent, vaut null (false pour la visibilité).
+ */
+public class ResultatDom {
+    private final String url;
+    private final String titre;
+    // nom de l'élément -> propriété -> valeur ; un élément absent n'a pas d'entrée
+    private final Map<String, Map<String, Object>> elements;
+
+    ResultatDom(String url, String titre, Map<String, Map<String, Object>> elements) {
+        this.url = url;
+        this.titre = titre;
+        this.elements = elements;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getTitre() {
+        return titre;
+    }
+
+    public boolean existe(String nom) {
+        return elements.containsKey(nom);
+    }
+
+    public boolean isVisible(String nom) {
+        return Boolean.TRUE.equals(propriete(nom, RequeteDom.VISIBLE));
+    }
+
+    public String getTexte(String nom) {
+        return texte(propriete(nom, RequeteDom.TEXTE));
+    }
+
+    public String getValeur(String nom) {
+        return texte(propriete(nom, RequeteDom.VALEUR));
+    }
+
+    public int getNombre(String nom) {
+        Object nombre = propriete(nom, RequeteDom.NOMBRE);
+        return nombre instanceof Number ? ((Number) nombre).intValue() : 0;
+    }
+
+    public String getAttribut(String nom, String attribut) {
+        return texte(propriete(nom, RequeteDom.attribut(attribut)));
+    }
+
+    private Object propriete(String nom, String propriete) {
+        return elements.getOrDefault(nom, Collections.emptyMap()).get(propriete);
+    }
+
+    private static String texte(Object valeur) {
+        return valeur != null ? valeur.toString() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultatDom{url=" + url + ", titre=" + titre + ", elements=" + elements + "}";
+    }
+}
@@ -0,0 +1,245 @@
+package runner;
+
+import org.junit.runner.Description;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.manipulation.Sorter;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.RunnerScheduler;
+import utils.OrdonnanceurScenarios;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Ordonnancement de la voie principale : features et scénarios sont triés selon {@link OrdonnanceurScenarios}
+ * puis, avec plus d'un worker, les scénarios de toutes les features passent par une file de priorité
+ * unique consommée par un nombre fixe de workers. Chaque worker libre prend le scénario le plus prioritaire
+ * restant : en mode durée, c'est la répartition "plus long d'abord" qui équilibre la charge des workers.
+ * <p>
+ * Les workers ne démarrent qu'une fois tous les scénarios en file, pour que l'ordre soit global et non
+ * celui d'arrivée des features.
+ */
+class PlanificateurScenarios {
+    private static final long ATTENTE_SOUMISSIONS_MS = 5_000;
+
+    private final OrdonnanceurScenarios ordonnanceur;
+    private final int workers;
+    private final Map<ParentRunner<?>, List<Description>> scenariosParFeature = new LinkedHashMap<>();
+    private final Map<Description, Integer> rangs = new HashMap<>();
+    private final PriorityBlockingQueue<Tache> file = new PriorityBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private CountDownLatch soumissions;
+
+    PlanificateurScenarios(OrdonnanceurScenarios ordonnanceur, int workers) {
+        this.ordonnanceur = ordonnanceur;
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * À appeler juste avant l'exécution, une fois tous les filtres appliqués. Les enfants de
+     * {@code principal} sont les features, ceux des features les scénarios.
+     */
+    void preparer(ParentRunner<?> principal) {
+        Comparator<Description> ordre = ordreDescriptions();
+        principal.sort(new Sorter(ordre));
+        if (workers == 1) return;
+
+        try {
+            new Releve().apply(principal);
+        } catch (NoTestsRemainException e) {
+            return;
+        }
+        List<Description> scenarios = scenariosParFeature.values().stream()
+                .flatMap(List::stream).sorted(ordre).collect(Collectors.toList());
+        for (int i = 0; i < scenarios.size(); i++) {
+            rangs.put(scenarios.get(i), i);
+        }
+
+        soumissions = new CountDownLatch(scenariosParFeature.size());
+        scenariosParFeature.forEach((feature, liste) -> feature.setScheduler(new SchedulerFeature(liste)));
+        principal.setScheduler(new SchedulerCoordination());
+        System.out.println(plan(scenarios));
+    }
+
+    private Comparator<Description> ordreDescriptions() {
+        Comparator<String> ordreScenarios = ordonnanceur.ordre();
+        return (a, b) -> a.isTest() && b.isTest()
+                ? ordreScenarios.compare(a.getMethodName(), b.getMethodName())
+                : Double.compare(dureeEstimeeMs(b), dureeEstimeeMs(a));
+    }
+
+    private double dureeEstimeeMs(Description description) {
+        if (description.isTest()) return ordonnanceur.dureeEstimeeMs(description.getMethodName());
+        return description.getChildren().stream().mapToDouble(this::dureeEstimeeMs).sum();
+    }
+
+    private String plan(List<Description> scenarios) {
+        List<List<Description>> repartition = OrdonnanceurScenarios.repartir(scenarios, this::dureeEstimeeMs, workers);
+        String charges = repartition.stream()
+                .map(groupe -> String.format(Locale.ROOT, "%.1f s", groupe.stream().mapToDouble(this::dureeEstimeeMs).sum() / 1000))
+                .collect(Collectors.joining(" / "));
+        return String.format("Ordonnancement (%s): %d scénario(s) sur %d worker(s), charge estimée %s",
+                ordonnanceur.getMode().name().toLowerCase(Locale.ROOT), scenarios.size(), workers, charges);
+    }
+
+    /**
+     * Relève, sans rien filtrer, les scénarios restant dans chaque feature, dans l'ordre où la feature
+     * les soumettra à son scheduler.
+     */
+    private class Releve extends Filter {
+        private int profondeur;
+        private List<Description> courant;
+
+        @Override
+        public void apply(Object enfant) throws NoTestsRemainException {
+            if (profondeur == 1 && enfant instanceof ParentRunner) {
+                courant = new ArrayList<>();
+                scenariosParFeature.put((ParentRunner<?>) enfant, courant);
+            }
+            profondeur++;
+            try {
+                super.apply(enfant);
+            } finally {
+                profondeur--;
+            }
+        }
+
+        @Override
+        public boolean shouldRun(Description description) {
+            if (profondeur == 2 && description.isTest()) {
+                courant.add(description);
+            }
+            return true;
+        }
+
+        @Override
+        public String describe() {
+            return "relevé des scénarios";
+        }
+    }
+
+    private static class Tache implements Comparable<Tache> {
+        final int rang;
+        final long ordreArrivee;
+        final Runnable scenario;
+        final SchedulerFeature feature;
+
+        Tache(int rang, long ordreArrivee, Runnable scenario, SchedulerFeature feature) {
+            this.rang = rang;
+            this.ordreArrivee = ordreArrivee;
+            this.scenario = scenario;
+            this.feature = feature;
+        }
+
+        @Override
+        public int compareTo(Tache autre) {
+            int comparaison = Integer.compare(rang, autre.rang);
+            return comparaison != 0 ? comparaison : Long.compare(ordreArrivee, autre.ordreArrivee);
+        }
+    }
+
+    // Met les scénarios d'une feature dans la file commune et attend qu'ils soient tous terminés
+    private class SchedulerFeature implements RunnerScheduler {
+        private final List<Description> scenarios;
+        private int soumis;
+        private int termines;
+
+        SchedulerFeature(List<Description> scenarios) {
+            this.scenarios = scenarios;
+        }
+
+        @Override
+        public synchronized void schedule(Runnable scenario) {
+            Integer rang = soumis < scenarios.size() ? rangs.get(scenarios.get(soumis)) : null;
+            soumis++;
+            file.add(new Tache(rang != null ? rang : Integer.MAX_VALUE, sequence.getAndIncrement(), scenario, this));
+        }
+
+        synchronized void termine() {
+            termines++;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void finished() {
+            soumissions.countDown();
+            try {
+                while (termines < soumis) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Une feature par thread de coordination ; les scénarios eux-mêmes tournent sur les workers
+    private class SchedulerCoordination implements RunnerScheduler {
+        private final ExecutorService coordinateurs = Executors.newCachedThreadPool(threads("coordination-feature"));
+        private final List<Future<?>> features = new ArrayList<>();
+        private final AtomicBoolean attenteDepassee = new AtomicBoolean();
+        private ExecutorService executeurs;
+
+        @Override
+        public void schedule(Runnable feature) {
+            if (executeurs == null) {
+                executeurs = Executors.newFixedThreadPool(workers, threads("worker-scenarios"));
+                for (int i = 0; i < workers; i++) {
+                    executeurs.execute(this::consommer);
+                }
+            }
+            features.add(coordinateurs.submit(feature));
+        }
+
+        private void consommer() {
+            try {
+                if (!soumissions.await(ATTENTE_SOUMISSIONS_MS, TimeUnit.MILLISECONDS)
+                        && attenteDepassee.compareAndSet(false, true)) {
+                    System.err.println("⚠️ Ordonnancement: " + soumissions.getCount() + " feature(s) non soumise(s) après "
+                            + ATTENTE_SOUMISSIONS_MS + " ms, les workers démarrent sans ordre global");
+                }
+                while (!Thread.currentThread().isInterrupted()) {
+                    Tache tache = file.take();
+                    try {
+                        tache.scenario.run();
+                    } finally {
+                        tache.feature.termine();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Fin de la voie principale
+            }
+        }
+
+        @Override
+        public void finished() {
+            try {
+                for (Future<?> feature : features) {
+                    feature.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Exécution de feature interrompue", e.getCause());
+            } finally {
+                coordinateurs.shutdownNow();
+                if (executeurs != null) {
+                    executeurs.shutdownNow();
+                }
+            }
+        }
+    }
+
+    private static ThreadFactory threads(String prefixe) {
+        AtomicLong compteur = new AtomicLong();
+        return r -> {
+            Thread thread = new Thread(r, prefixe + "-" + compteur.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
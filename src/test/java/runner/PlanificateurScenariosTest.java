@@ -0,0 +1,164 @@
+package runner;
+
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.InitializationError;
+import utils.OrdonnanceurScenarios;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * File commune de PlanificateurScenarios sur un arbre principal -> features -> scénarios factice : chaque
+ * scénario bloque jusqu'à ce que le test le libère, un seul worker est donc libre à chaque prise.
+ */
+public class PlanificateurScenariosTest {
+    private static final Map<String, Double> DUREES = Map.of(
+            "A1", 100.0, "A2", 900.0, "B1", 500.0, "B2", 300.0, "C1", 700.0);
+
+    private final BlockingQueue<String> demarres = new LinkedBlockingQueue<>();
+    private final Map<String, CountDownLatch> liberations = new ConcurrentHashMap<>();
+    private final Map<String, Integer> executions = new ConcurrentHashMap<>();
+    private final Set<String> termines = ConcurrentHashMap.newKeySet();
+    // Feature -> tous ses scénarios étaient terminés quand son scheduler a rendu la main
+    private final Map<String, Boolean> featuresCompletes = new ConcurrentHashMap<>();
+
+    @Test
+    public void plusLongDAbordToutesFeaturesConfondues() throws Exception {
+        Principal principal = new Principal(List.of(
+                new Feature("A", "A1", "A2"), new Feature("B", "B1", "B2"), new Feature("C", "C1")));
+        new PlanificateurScenarios(new OrdonnanceurScenarios(DUREES, Collections.emptyMap(),
+                OrdonnanceurScenarios.Mode.DUREE), 2).preparer(principal);
+        Thread execution = new Thread(() -> principal.run(new RunNotifier()));
+        execution.start();
+
+        // Deux workers : les deux plus longs partent ensemble
+        assertEquals(Set.of("A2", "C1"), Set.of(prochain(), prochain()));
+        liberer("A2");
+        assertEquals("B1", prochain());
+        liberer("C1");
+        assertEquals("B2", prochain());
+        liberer("B1");
+        assertEquals("A1", prochain());
+        liberer("B2");
+
+        // A1 en cours : la voie principale n'est pas terminée
+        execution.join(200);
+        assertTrue(execution.isAlive());
+        assertFalse(featuresCompletes.containsKey("A"));
+
+        liberer("A1");
+        execution.join(5000);
+        assertFalse(execution.isAlive());
+        assertNull(demarres.poll());
+        assertEquals(Map.of("A1", 1, "A2", 1, "B1", 1, "B2", 1, "C1", 1), executions);
+        assertEquals(Map.of("A", true, "B", true, "C", true), featuresCompletes);
+    }
+
+    @Test
+    public void chaqueScenarioUneSeuleFois() throws Exception {
+        List<Feature> features = new ArrayList<>();
+        for (char feature = 'D'; feature <= 'H'; feature++) {
+            features.add(new Feature(String.valueOf(feature), feature + "1", feature + "2", feature + "3"));
+        }
+        features.forEach(feature -> feature.scenarios.forEach(scenario -> liberer(scenario)));
+        Principal principal = new Principal(features);
+        new PlanificateurScenarios(new OrdonnanceurScenarios(Collections.emptyMap(), Collections.emptyMap(),
+                OrdonnanceurScenarios.Mode.DUREE), 3).preparer(principal);
+
+        principal.run(new RunNotifier());
+
+        assertEquals(15, executions.size());
+        executions.forEach((scenario, nombre) -> assertEquals(scenario, Integer.valueOf(1), nombre));
+        assertEquals(15, termines.size());
+        assertEquals(5, featuresCompletes.size());
+        assertFalse(featuresCompletes.containsValue(false));
+    }
+
+    private String prochain() throws InterruptedException {
+        String scenario = demarres.poll(5, TimeUnit.SECONDS);
+        assertNotNull("Aucun scénario démarré", scenario);
+        return scenario;
+    }
+
+    private void liberer(String scenario) {
+        liberations.computeIfAbsent(scenario, k -> new CountDownLatch(1)).countDown();
+    }
+
+    private class Principal extends ParentRunner<Feature> {
+        private final List<Feature> features;
+
+        Principal(List<Feature> features) throws InitializationError {
+            super((Class<?>) null);
+            this.features = features;
+        }
+
+        @Override
+        protected String getName() {
+            return "principal";
+        }
+
+        @Override
+        protected List<Feature> getChildren() {
+            return features;
+        }
+
+        @Override
+        protected Description describeChild(Feature feature) {
+            return feature.getDescription();
+        }
+
+        @Override
+        protected void runChild(Feature feature, RunNotifier notifier) {
+            feature.run(notifier);
+        }
+    }
+
+    private class Feature extends ParentRunner<String> {
+        private final String nom;
+        private final List<String> scenarios;
+
+        Feature(String nom, String... scenarios) throws InitializationError {
+            super((Class<?>) null);
+            this.nom = nom;
+            this.scenarios = List.of(scenarios);
+        }
+
+        @Override
+        protected String getName() {
+            return nom;
+        }
+
+        @Override
+        protected List<String> getChildren() {
+            return scenarios;
+        }
+
+        @Override
+        protected Description describeChild(String scenario) {
+            return Description.createTestDescription(nom, scenario);
+        }
+
+        @Override
+        protected void runChild(String scenario, RunNotifier notifier) {
+            executions.merge(scenario, 1, Integer::sum);
+            demarres.add(scenario);
+            try {
+                liberations.computeIfAbsent(scenario, k -> new CountDownLatch(1)).await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            termines.add(scenario);
+        }
+
+        @Override
+        public void run(RunNotifier notifier) {
+            super.run(notifier);
+            featuresCompletes.put(nom, termines.containsAll(scenarios));
+        }
+    }
+}
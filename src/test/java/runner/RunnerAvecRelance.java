@@ -0,0 +1,328 @@
+package runner;
+
+import io.cucumber.junit.Cucumber;
+import io.cucumber.junit.CucumberOptions;
+import org.junit.runner.Description;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runner.notification.StoppedByUserException;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
+import utils.ConfigReader;
+import utils.OrdonnanceurScenarios;
+import utils.RelanceScenarios;
+import utils.RepartitionShards;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Runner Cucumber avec relance ciblée des échecs et voie de quarantaine :
+ * <ol>
+ * <li>voie principale : tous les scénarios sauf ceux en quarantaine ; les échecs sont retenus ;</li>
+ * <li>relances (relance.max) : seuls les scénarios en échec, dans la même JVM, pool de navigateurs
+ * encore chaud ; un scénario qui passe à la relance est signalé instable et ne fait pas échouer le build ;</li>
+ * <li>voie de quarantaine : scénarios dont le score d'instabilité dépasse quarantaine.seuil ; leurs échecs
+ * sont rapportés comme ignorés (non bloquants).</li>
+ * </ol>
+ * Relances et quarantaine écrivent leurs rapports Cucumber dans des fichiers distincts. Avec
+ * -Dshard.total &gt; 1, chaque voie ne garde que les scénarios du shard -Dshard.index ({@link RepartitionShards}).
+ */
+public class RunnerAvecRelance extends ParentRunner<Description> {
+    private static final String ALLURE = "io.qameta.allure.cucumber7jvm.AllureCucumber7Jvm";
+
+    @CucumberOptions(features = TestRunner.FEATURES, glue = TestRunner.GLUE,
+            plugin = {"pretty", "json:target/cucumber-relances.json", ALLURE})
+    public static class OptionsRelance {
+    }
+
+    @CucumberOptions(features = TestRunner.FEATURES, glue = TestRunner.GLUE,
+            plugin = {"pretty", "json:target/cucumber-quarantaine.json", ALLURE})
+    public static class OptionsQuarantaine {
+    }
+
+    private final Cucumber principal;
+    private final Set<String> quarantaine;
+    private final Predicate<Description> dansShard;
+    private final RelanceScenarios relances = RelanceScenarios.getInstance();
+
+    public RunnerAvecRelance(Class<?> classeTest) throws InitializationError {
+        super(classeTest);
+        principal = new Cucumber(classeTest);
+        dansShard = selectionnerShard();
+        quarantaine = relances.scenariosEnQuarantaine();
+        if (!quarantaine.isEmpty()) {
+            System.out.println("Scénarios en quarantaine (non bloquants): " + quarantaine);
+        }
+        filtrer(principal, d -> dansShard.test(d) && !quarantaine.contains(d.getMethodName()));
+    }
+
+    // Le shard est calculé sur tous les scénarios, quarantaine comprise, pour être le même sur chaque agent
+    private Predicate<Description> selectionnerShard() {
+        if (!RepartitionShards.isActif()) return d -> true;
+        List<Description> scenarios = new ArrayList<>();
+        for (Description feature : principal.getDescription().getChildren()) {
+            scenarios.addAll(feature.getChildren());
+        }
+        int index = RepartitionShards.getIndex();
+        int total = RepartitionShards.getTotal();
+        Set<Description> shard = new HashSet<>(RepartitionShards.shard(scenarios, Description::getMethodName,
+                RepartitionShards.chargerDurees(RepartitionShards.getFichierDurees()), index, total));
+        System.out.println("Shard " + (index + 1) + "/" + total + ": " + shard.size() + " scénario(s) sur " + scenarios.size());
+        return shard::contains;
+    }
+
+    @Override
+    public Description getDescription() {
+        return principal.getDescription();
+    }
+
+    // Le scheduler parallèle de surefire s'applique à la voie principale, sauf si PlanificateurScenarios
+    // la répartit lui-même (ordonnancement.workers > 1)
+    @Override
+    public void setScheduler(RunnerScheduler scheduler) {
+        principal.setScheduler(scheduler);
+    }
+
+    @Override
+    public void filter(Filter filter) throws NoTestsRemainException {
+        principal.filter(filter);
+    }
+
+    @Override
+    protected List<Description> getChildren() {
+        return principal.getDescription().getChildren();
+    }
+
+    @Override
+    protected Description describeChild(Description child) {
+        return child;
+    }
+
+    @Override
+    protected void runChild(Description child, RunNotifier notifier) {
+        // Jamais appelé : run() pilote les voies
+    }
+
+    @Override
+    public void run(RunNotifier notifier) {
+        relances.demarrer();
+        try {
+            NotifierDiffere differe = new NotifierDiffere(notifier);
+            if (!principal.getDescription().getChildren().isEmpty()) {
+                if (ConfigReader.getBooleanProperty("ordonnancement.actif", true)) {
+                    new PlanificateurScenarios(OrdonnanceurScenarios.depuisHistorique(),
+                            ConfigReader.getIntProperty("ordonnancement.workers", 1)).preparer(principal);
+                }
+                principal.run(differe);
+            }
+
+            Set<Description> enEchec = new HashSet<>(differe.echecs.keySet());
+            for (int tentative = 1; RelanceScenarios.isRelanceActive() && !enEchec.isEmpty()
+                    && tentative <= RelanceScenarios.getRelancesMax(); tentative++) {
+                System.out.println("\n🔁 Relance " + tentative + " de " + enEchec.size() + " scénario(s) en échec");
+                relances.setTentative(tentative);
+                Set<Description> cibles = new HashSet<>(enEchec);
+                enEchec = relancer(cibles);
+                cibles.removeAll(enEchec);
+                cibles.forEach(d -> System.out.println("⚠️ Scénario instable (réussi à la relance): " + d.getMethodName()));
+            }
+            relances.setTentative(0);
+            differe.liberer(enEchec);
+
+            if (!quarantaine.isEmpty()) {
+                executerQuarantaine(notifier);
+            }
+        } finally {
+            // Fin d'exécution différée (rapport, pool...) : une seule fois, après toutes les voies
+            relances.terminer();
+        }
+    }
+
+    // Les notifications des relances ne vont pas à surefire : seul le verdict final y est rapporté
+    private Set<Description> relancer(Set<Description> cibles) {
+        Set<Description> toujoursEnEchec = ConcurrentHashMap.newKeySet();
+        try {
+            Cucumber relance = creer(OptionsRelance.class);
+            if (!filtrer(relance, cibles::contains)) return cibles;
+            RunNotifier collecteur = new RunNotifier();
+            collecteur.addListener(new RunListener() {
+                @Override
+                public void testFailure(Failure failure) {
+                    if (failure.getDescription().isTest()) {
+                        toujoursEnEchec.add(failure.getDescription());
+                    }
+                }
+            });
+            relance.run(collecteur);
+            return toujoursEnEchec;
+        } catch (InitializationError e) {
+            System.err.println("Relance impossible: " + e.getMessage());
+            return cibles;
+        }
+    }
+
+    private void executerQuarantaine(RunNotifier notifier) {
+        try {
+            Cucumber voieQuarantaine = creer(OptionsQuarantaine.class);
+            if (filtrer(voieQuarantaine, d -> dansShard.test(d) && quarantaine.contains(d.getMethodName()))) {
+                voieQuarantaine.run(new NotifierQuarantaine(notifier));
+            }
+        } catch (InitializationError e) {
+            System.err.println("Voie de quarantaine impossible: " + e.getMessage());
+        }
+    }
+
+    // cucumber.plugin (argLine surefire) s'ajouterait aux plugins de la voie et écraserait les rapports principaux
+    private static Cucumber creer(Class<?> options) throws InitializationError {
+        String plugins = System.clearProperty("cucumber.plugin");
+        try {
+            return new Cucumber(options);
+        } finally {
+            if (plugins != null) {
+                System.setProperty("cucumber.plugin", plugins);
+            }
+        }
+    }
+
+    /**
+     * Ne garde que les scénarios acceptés ; les descriptions Cucumber d'un même scénario sont égales
+     * d'une instance à l'autre (même fichier, même ligne).
+     *
+     * @return false s'il ne reste aucun scénario
+     */
+    private static boolean filtrer(Cucumber cucumber, Predicate<Description> scenario) {
+        try {
+            cucumber.filter(new Filter() {
+                @Override
+                public boolean shouldRun(Description description) {
+                    if (description.isTest()) return scenario.test(description);
+                    for (Description enfant : description.getChildren()) {
+                        if (shouldRun(enfant)) return true;
+                    }
+                    return false;
+                }
+
+                @Override
+                public String describe() {
+                    return "scénarios sélectionnés";
+                }
+            });
+            return true;
+        } catch (NoTestsRemainException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Transmet tout à surefire, sauf les échecs de scénarios et leur fin, retenus jusqu'au verdict des relances.
+     */
+    private static class NotifierDiffere extends NotifierDelegue {
+        final Map<Description, List<Failure>> echecs = new ConcurrentHashMap<>();
+
+        NotifierDiffere(RunNotifier cible) {
+            super(cible);
+        }
+
+        @Override
+        public void fireTestFailure(Failure failure) {
+            if (failure.getDescription().isTest()) {
+                echecs.computeIfAbsent(failure.getDescription(), d -> Collections.synchronizedList(new ArrayList<>())).add(failure);
+            } else {
+                cible.fireTestFailure(failure);
+            }
+        }
+
+        @Override
+        public void fireTestFinished(Description description) {
+            if (!echecs.containsKey(description)) {
+                cible.fireTestFinished(description);
+            }
+        }
+
+        // Échecs confirmés rapportés ; scénarios réussis à la relance rapportés comme réussis
+        void liberer(Set<Description> toujoursEnEchec) {
+            echecs.forEach((description, failures) -> {
+                if (toujoursEnEchec.contains(description)) {
+                    failures.forEach(cible::fireTestFailure);
+                }
+                cible.fireTestFinished(description);
+            });
+        }
+    }
+
+    private static class NotifierQuarantaine extends NotifierDelegue {
+        NotifierQuarantaine(RunNotifier cible) {
+            super(cible);
+        }
+
+        @Override
+        public void fireTestFailure(Failure failure) {
+            System.out.println("🚧 Échec en quarantaine (non bloquant): " + failure.getDescription().getMethodName());
+            cible.fireTestAssumptionFailed(failure);
+        }
+    }
+
+    private static class NotifierDelegue extends RunNotifier {
+        final RunNotifier cible;
+
+        NotifierDelegue(RunNotifier cible) {
+            this.cible = cible;
+        }
+
+        @Override
+        public void fireTestRunStarted(Description description) {
+            cible.fireTestRunStarted(description);
+        }
+
+        @Override
+        public void fireTestRunFinished(org.junit.runner.Result result) {
+            cible.fireTestRunFinished(result);
+        }
+
+        @Override
+        public void fireTestSuiteStarted(Description description) {
+            cible.fireTestSuiteStarted(description);
+        }
+
+        @Override
+        public void fireTestSuiteFinished(Description description) {
+            cible.fireTestSuiteFinished(description);
+        }
+
+        @Override
+        public void fireTestStarted(Description description) throws StoppedByUserException {
+            cible.fireTestStarted(description);
+        }
+
+        @Override
+        public void fireTestFailure(Failure failure) {
+            cible.fireTestFailure(failure);
+        }
+
+        @Override
+        public void fireTestAssumptionFailed(Failure failure) {
+            cible.fireTestAssumptionFailed(failure);
+        }
+
+        @Override
+        public void fireTestIgnored(Description description) {
+            cible.fireTestIgnored(description);
+        }
+
+        @Override
+        public void fireTestFinished(Description description) {
+            cible.fireTestFinished(description);
+        }
+
+        @Override
+        public void pleaseStop() {
+            cible.pleaseStop();
+        }
+    }
+}
@@ -1,14 +1,15 @@
 package runner;
 
-import io.cucumber.junit.Cucumber;
 import io.cucumber.junit.CucumberOptions;
 import org.junit.runner.RunWith;
 
-@RunWith(Cucumber.class)
+@RunWith(RunnerAvecRelance.class)
 @CucumberOptions(
-        features = "src/test/resources/features", // Path to your feature files
-        glue = "stepdefinitions", // Correct package for step definitions
+        features = TestRunner.FEATURES, // Path to your feature files
+        glue = TestRunner.GLUE, // Correct package for step definitions
         plugin = {"pretty", "html:target/cucumber-reports/cucumber.html","json:target/cucumber.json", "io.qameta.allure.cucumber7jvm.AllureCucumber7Jvm"}
 )
 public class TestRunner {
+    static final String FEATURES = "src/test/resources/features";
+    static final String GLUE = "stepdefinitions";
 }
@@ -2,58 +2,122 @@
 package stepdefinitions;
 
 import io.appium.java_client.android.AndroidDriver;
+import io.qameta.allure.Allure;
 import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
 import io.cucumber.java.Before;
+import io.cucumber.java.BeforeAll;
 import io.cucumber.java.Scenario;
 import io.cucumber.java.en.Given;
-import org.openqa.selenium.OutputType;
-import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
+import pages.BasePage;
+import utils.AttentesAdaptatives;
+import utils.CacheElements;
 import utils.ConfigReader;
 import utils.Driver;
+import utils.EnregistreurFixtures;
+import utils.EtatConsentement;
+import utils.HistoriqueExecutions;
+import utils.InterceptionReseau;
 import utils.OS;
+import utils.PipelineArtefacts;
+import utils.RelanceScenarios;
+import utils.ScenarioContext;
+import utils.ServeurFixtures;
 import utils.TestManager;
 import org.openqa.selenium.By;
 
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Hooks {
     public static final String NOM_APK = "radio-france.apk";
     public static final String URL_WEB = "https://www.radiofrance.fr/franceculture";
-    protected WebDriverWait attente;
-    private TestManager infosTest;
-    private static boolean isFirstTest = true;
+    private final ScenarioContext infosTest;
 
-    @Before
+    public Hooks(ScenarioContext infosTest) {
+        this.infosTest = infosTest;
+    }
+
+    /**
+     * URL de la page d'accueil : le site réel, ou le serveur de fixtures local en mode rejeu.
+     */
+    public static String urlWeb() {
+        return ServeurFixtures.reecrireUrl(URL_WEB);
+    }
+
+    @BeforeAll
+    public static void prechaufferDrivers() {
+        OS.OS = ConfigReader.getProperty("platformName");
+        if (OS.isWeb()) {
+            ServeurFixtures.demarrer(URL_WEB);
+            try {
+                Driver.getPoolWeb().prechauffer();
+            } catch (Exception e) {
+                // Les sessions seront créées à la demande dans avantTout
+                System.err.println("Préchauffage du pool impossible: " + e.getMessage());
+            }
+        }
+    }
+
+    @AfterAll
+    public static void finExecution() {
+        // Pendant les relances, le pool et les rapports restent ouverts : le runner rappellera cette méthode
+        if (RelanceScenarios.getInstance().differer(Hooks::finExecution)) return;
+        HistoriqueExecutions historique = TestManager.getInstance().getHistorique();
+        if (historique != null) {
+            System.out.println(historique.resume(30));
+        }
+        PipelineArtefacts.getInstance().terminer(ConfigReader.getIntProperty("artefacts.attente.s", 30));
+        System.out.println(PipelineArtefacts.getInstance().resume());
+        TestManager.getInstance().finaliserRapport();
+        TestManager.getInstance().sauvegarderTransitions();
+        TestManager.getInstance().fermerHistorique();
+        System.out.println("Temps gagné sur les attentes fixes: " + BasePage.getTempsEconomiseMillis() + " ms");
+        // Attentes web et Android : les deux plateformes alimentent l'historique
+        System.out.println(AttentesAdaptatives.getInstance().resume());
+        AttentesAdaptatives.getInstance().sauvegarder();
+        if (OS.isWeb()) {
+            System.out.println(Driver.getPoolWeb().resume());
+            System.out.println(CacheElements.resume());
+            Driver.getPoolWeb().fermer();
+        } else if (OS.isAndroid()) {
+            System.out.println(Driver.getSessionAndroid().resume());
+            Driver.getSessionAndroid().fermer();
+            Driver.Android = null;
+        }
+        ServeurFixtures.arreter();
+    }
+
+    // order = 0 : le contexte et le driver doivent être prêts avant les autres hooks @Before
+    @Before(order = 0)
     public void avantTout(Scenario scenario) {
         try {
             // Définir la plateforme
             OS.OS = ConfigReader.getProperty("platformName");
 
             // Initialiser les informations pour le rapport de test
-            infosTest = TestManager.getInstance();
-            infosTest.setNomScenario(scenario.getName());
-            infosTest.setNomEtape("Début du Test");
+            infosTest.setNomScenario(RelanceScenarios.getInstance().nomExecution(scenario.getName()));
             infosTest.setPlateforme(OS.OS);
+            infosTest.debutEtape("Début du Test");
             infosTest.setStatut("DÉMARRÉ");
 
             if (OS.isWeb()) {
                 infosTest.setResultatAttendu("Le navigateur web doit être lancé");
-                if (Driver.Web == null) {
-                    Driver.Web = Driver.getWebDriver(ConfigReader.getProperty("browser"));
-                    this.attente = new WebDriverWait(Driver.Web, Duration.ofSeconds(10));
+                WebDriver web = Driver.emprunterWeb();
+                EnregistreurFixtures enregistreur = EnregistreurFixtures.pour(web);
+                if (enregistreur != null) {
+                    enregistreur.demarrer();
                 }
             } else if (OS.isAndroid()) {
                 infosTest.setResultatAttendu("L'application Android doit être lancée");
-                if (Driver.Android == null) {
-                    Driver.Android = Driver.getAndroidDriver(Driver.getAndroidApps());
-                }
+                // Session réutilisée : seul l'application redémarre entre deux scénarios
+                Driver.Android = Driver.getSessionAndroid().obtenir();
             }
 
-            TestManager.getInstance().ajouterInfosTest(infosTest);
+            infosTest.enregistrerEtape();
 
             // Test önerilerini al ve göster
             if (!infosTest.getTestSuggestions().isEmpty()) {
@@ -64,27 +128,37 @@ public class Hooks {
         } catch (Exception e) {
             infosTest.setStatut("ECHEC");
             infosTest.setMessageErreur("Erreur d'initialisation: " + e.getMessage());
-            TestManager.getInstance().ajouterInfosTest(infosTest);
+            infosTest.enregistrerEtape();
             throw new RuntimeException(e);
         }
     }
 
     @Given("Je lance l'application")
     public void lanceApp() {
-        infosTest = TestManager.getInstance();
-        infosTest.setNomEtape("Lancement de l'Application");
-        System.out.println("Lancement de l'application web : " + URL_WEB);
+        infosTest.debutEtape("Lancement de l'Application");
+        String urlWeb = urlWeb();
+        System.out.println("Lancement de l'application web : " + urlWeb);
 
+        boolean consentementInjecte = false;
         try {
             WebDriver driver = Driver.getCurrentDriver();
             if (driver != null) {
                 if (OS.isWeb()) {
-                    driver.get(URL_WEB);
-                    this.attente = new WebDriverWait(driver, Duration.ofSeconds(10));
-                    gererPopupsEtCookies();
+                    // Consentement déjà connu : déposé avant la navigation, le bandeau ne s'affiche pas
+                    EtatConsentement consentement = EtatConsentement.isActif() ? EtatConsentement.getCache() : null;
+                    consentementInjecte = consentement != null && consentement.injecter(driver, urlWeb);
+
+                    // Compteurs réseau du scénario, résumés dans "Fin du Test"
+                    InterceptionReseau reseau = InterceptionReseau.pour(driver);
+                    if (reseau != null) {
+                        reseau.reinitialiser();
+                    }
+                    driver.get(urlWeb);
+                    BasePage.nouvellePage(driver);
+                    Driver.attendrePagePrete(driver);
                     infosTest.setStatut("REUSSI");
                     infosTest.setResultatReel("L'application web a été lancée avec succès");
-                    infosTest.setUrl(URL_WEB);
+                    infosTest.setUrl(urlWeb);
                 }
             } else {
                 throw new RuntimeException("Driver non initialisé");
@@ -94,47 +168,78 @@ public class Hooks {
             infosTest.setMessageErreur("Erreur de lancement: " + e.getMessage());
             throw e;
         } finally {
-            TestManager.getInstance().ajouterInfosTest(infosTest);
+            infosTest.enregistrerEtape();
+        }
+
+        // Les popups sont enregistrés comme une étape distincte, après le lancement
+        if (OS.isWeb()) {
+            gererPopupsEtCookies(consentementInjecte);
         }
     }
 
-    private void gererPopupsEtCookies() {
-        TestManager infosPopup = TestManager.getInstance();
-        infosPopup.setNomEtape("Gestion des Popups et Cookies");
+    private void gererPopupsEtCookies(boolean consentementInjecte) {
+        infosTest.debutEtape("Gestion des Popups et Cookies");
         StringBuilder resultats = new StringBuilder();
+        BasePage attentes = new BasePage(Driver.getCurrentDriver());
 
         try {
-            // Gérer les popups avec des tentatives multiples
-            for (String xpath : new String[]{
-                    "//span[text()='Tout refuser']",
-                    "//span[text()='Tout accepter']"
-            }) {
+            // Tous les bandeaux candidats sont attendus ensemble : un seul timeout court si aucun n'apparaît
+            List<By> candidats = new ArrayList<>(List.of(
+                    By.xpath("//span[text()='Tout refuser']"),
+                    By.xpath("//span[text()='Tout accepter']")
+            ));
+            // Avec un consentement injecté, on vérifie seulement brièvement que le bandeau est bien absent
+            Duration timeout = consentementInjecte
+                    ? Duration.ofMillis(ConfigReader.getIntProperty("consentement.verification.ms", 500))
+                    : Duration.ofMillis(ConfigReader.getIntProperty("popups.attente.ms", 3000));
+            boolean clique = false;
+            while (!candidats.isEmpty()) {
+                By trouve = attentes.attendrePremierParmi(timeout, candidats.toArray(new By[0]));
+                if (trouve == null) {
+                    resultats.append("Aucun popup restant parmi: ").append(candidats).append("\n");
+                    break;
+                }
+                if (consentementInjecte && !clique) {
+                    // Consentement refusé par le site : retour au clic, l'état sera recapturé
+                    resultats.append("Consentement en cache rejeté, gestion par clic\n");
+                    EtatConsentement.invalider();
+                }
+                candidats.remove(trouve);
                 try {
-                    WebElement element = attente.until(ExpectedConditions.elementToBeClickable(By.xpath(xpath)));
-                    element.click();
-                    resultats.append("Élément cliqué: ").append(xpath).append("\n");
-                    Thread.sleep(1000); // Petit délai entre les clics
+                    attentes.attendreCliquable(trouve, Duration.ofSeconds(10)).click();
+                    clique = true;
+                    resultats.append("Élément cliqué: ").append(trouve).append("\n");
+                    // Au lieu d'une pause fixe d'une seconde : attendre la fermeture du bandeau
+                    attentes.attendreDisparition(trouve, Duration.ofSeconds(1), Duration.ofSeconds(1));
                 } catch (Exception e) {
-                    resultats.append("Élément non trouvé ou déjà géré: ").append(xpath).append("\n");
+                    resultats.append("Élément non trouvé ou déjà géré: ").append(trouve).append("\n");
                 }
+                // Un second bandeau éventuel s'affiche juste après le premier
+                timeout = Duration.ofSeconds(1);
+            }
+
+            if (clique && EtatConsentement.isActif()) {
+                EtatConsentement.capturerEtConserver(Driver.getCurrentDriver());
+            } else if (consentementInjecte) {
+                resultats.append("Bandeau évité grâce au consentement en cache\n");
             }
 
-            infosPopup.setStatut("REUSSI");
-            infosPopup.setResultatReel(resultats.toString());
+            infosTest.setStatut("REUSSI");
+            infosTest.setResultatReel(resultats.toString());
         } catch (Exception e) {
-            infosPopup.setStatut("ECHEC");
-            infosPopup.setMessageErreur("Gestion des popups: " + e.getMessage());
+            infosTest.setStatut("ECHEC");
+            infosTest.setMessageErreur("Gestion des popups: " + e.getMessage());
         } finally {
-            TestManager.getInstance().ajouterInfosTest(infosPopup);
+            infosTest.enregistrerEtape();
         }
     }
 
     @After
     public void terminer(Scenario scenario) {
+        // Le message de la dernière étape en échec, avant qu'il ne soit remis à zéro
+        String derniereErreur = infosTest.getMessageErreur();
         try {
-            infosTest = TestManager.getInstance();
-            infosTest.setNomEtape("Fin du Test");
-            infosTest.setNomScenario(scenario.getName());
+            infosTest.debutEtape("Fin du Test");
 
             WebDriver driver = Driver.getCurrentDriver();
             if (driver != null) {
@@ -142,34 +247,47 @@ public class Hooks {
 
                 if (scenario.isFailed()) {
                     infosTest.setStatut("ECHEC");
-                    if (driver instanceof TakesScreenshot) {
-                        byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
-                        scenario.attach(screenshot, "image/png", "screenshot-erreur");
-                        infosTest.setResultatReel("Test échoué - Capture d'écran ajoutée");
-
-                        // Hata analizini göster
-                        System.out.println("\n🔍 Analyse de l'échec:");
-                        System.out.println(infosTest.getMessageErreur());
+                    // Seules les lectures sur le driver sont faites ici ; encodage et écriture en arrière-plan
+                    Path artefacts = PipelineArtefacts.getInstance().capturer(driver, scenario.getName());
+                    String reference = artefacts.toAbsolutePath().toUri().toString();
+                    scenario.attach(reference, "text/uri-list", "artefacts-erreur");
+                    try {
+                        Allure.link("Artefacts d'échec", reference);
+                    } catch (Exception e) {
+                        // Pas de test Allure en cours (exécution sans le plugin)
                     }
+                    infosTest.setResultatReel("Test échoué - Artefacts: " + artefacts);
+
+                    // Hata analizini göster
+                    System.out.println("\n🔍 Analyse de l'échec:");
+                    System.out.println(derniereErreur);
                 } else {
                     infosTest.setStatut("REUSSI");
                     infosTest.setResultatReel("Test terminé avec succès");
                 }
+
+                InterceptionReseau reseau = OS.isWeb() ? InterceptionReseau.pour(driver) : null;
+                if (reseau != null) {
+                    infosTest.setResultatReel(infosTest.getResultatReel() + " - " + reseau.resume());
+                }
             }
 
         } catch (Exception e) {
             infosTest.setStatut("ECHEC");
             infosTest.setMessageErreur("Erreur finale: " + e.getMessage());
         } finally {
-            TestManager.getInstance().ajouterInfosTest(infosTest);
+            infosTest.enregistrerEtape();
+            infosTest.terminerScenario();
 
             // Test pattern analizi
             System.out.println("\n📊 Résumé du test:");
             System.out.println("• Scénario: " + scenario.getName());
             System.out.println("• Statut: " + infosTest.getStatut());
 
-            // Rapor oluştur
-            TestManager.getInstance().genererRapport("RadioFrance");
+            // Rapor oluştur (en mode streaming, le fichier est écrit une seule fois dans finExecution)
+            if (!TestManager.getInstance().isRapportStreaming()) {
+                TestManager.getInstance().genererRapport("RadioFrance");
+            }
             quitterDriver();
         }
     }
@@ -178,12 +296,15 @@ public class Hooks {
         try {
             WebDriver driver = Driver.getCurrentDriver();
             if (driver != null) {
-                if (OS.isAndroid() && Driver.Android != null) {
-                    Driver.Android.terminateApp(getAppPackage());
-                    Driver.Android = null;
-                } else if (OS.isWeb() && Driver.Web != null) {
-                    Driver.Web.quit();
-                    Driver.Web = null;
+                if (OS.isAndroid()) {
+                    Driver.getSessionAndroid().liberer();
+                } else if (OS.isWeb()) {
+                    EnregistreurFixtures enregistreur = EnregistreurFixtures.pour(driver);
+                    if (enregistreur != null) {
+                        enregistreur.sauvegarder(infosTest.getNomScenario(), URL_WEB);
+                    }
+                    // La session retourne au pool pour le scénario suivant
+                    Driver.rendreWeb();
                 }
             }
         } catch (Exception e) {
@@ -192,6 +313,6 @@ public class Hooks {
     }
 
     public static String getAppPackage() {
-        return "com.radiofrance.radio.radiofrance.android";
+        return Driver.APP_PACKAGE_ANDROID;
     }
 }
@@ -1,34 +1,37 @@
 package stepdefinitions;
 
-import io.cucumber.java.Before;
-import io.cucumber.java.Scenario;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
 import pages.RadioPage;
+import pages.ResultatDom;
 import utils.Driver;
-import utils.TestManager;
+import utils.ScenarioContext;
+import utils.ServeurFixtures;
+
+import java.time.Duration;
 
 import static org.junit.Assert.assertTrue;
 
 public class RadioStep {
-    private RadioPage pageRadio = new RadioPage();
-    private TestManager testManager;
-    private static String currentScenarioName;
+    private RadioPage pageRadio;
+    private final ScenarioContext testManager;
 
-    public RadioStep() {
-        testManager = TestManager.getInstance();
+    public RadioStep(ScenarioContext testManager) {
+        this.testManager = testManager;
     }
 
-    @Before
-    public void setUp(Scenario scenario) {
-        currentScenarioName = scenario.getName();
+    // La page est créée au premier step : le driver n'existe qu'après le hook @Before
+    private RadioPage pageRadio() {
+        if (pageRadio == null) {
+            pageRadio = new RadioPage();
+        }
+        return pageRadio;
     }
 
     private void executeStep(String stepName, String expectedResult, Runnable action) {
         try {
             // Step bilgilerini ayarla
-            testManager.setNomScenario(currentScenarioName);
-            testManager.setNomEtape(stepName);
+            testManager.debutEtape(stepName);
             testManager.setResultatAttendu(expectedResult);
 
             // Step'i çalıştır
@@ -37,10 +40,12 @@ public class RadioStep {
             // Başarılı sonuç
             testManager.setStatut("REUSSI");
 
-            // URL varsa kaydet
-            String currentUrl = Driver.getCurrentDriver().getCurrentUrl();
-            if (currentUrl != null) {
-                testManager.setUrl(currentUrl);
+            // URL varsa kaydet (déjà lue par les vérifications groupées)
+            if (testManager.getUrl() == null) {
+                String currentUrl = Driver.getCurrentDriver().getCurrentUrl();
+                if (currentUrl != null) {
+                    testManager.setUrl(currentUrl);
+                }
             }
 
         } catch (Exception e) {
@@ -48,7 +53,7 @@ public class RadioStep {
             testManager.setMessageErreur(e.getMessage());
             throw e;
         } finally {
-            TestManager.getInstance().ajouterInfosTest(testManager);
+            testManager.enregistrerEtape();
         }
     }
 
@@ -58,10 +63,13 @@ public class RadioStep {
                 "Vérification de la page d'accueil",
                 "La page d'accueil doit être affichée",
                 () -> {
-                    String urlAttendue = "https://www.radiofrance.fr";
-                    String urlReelle = Driver.getCurrentDriver().getCurrentUrl();
-                    assertTrue(urlReelle.startsWith(urlAttendue));
-                    testManager.setResultatReel("Page d'accueil vérifiée");
+                    String urlAttendue = ServeurFixtures.reecrireUrl("https://www.radiofrance.fr");
+                    // URL, titre et éléments de la page en un seul aller-retour
+                    ResultatDom page = pageRadio().lireEtatPage();
+                    testManager.setUrl(page.getUrl());
+                    assertTrue(page.getUrl() != null && page.getUrl().startsWith(urlAttendue));
+                    testManager.setResultatReel("Page d'accueil vérifiée: " + page.getTitre()
+                            + " (bouton Rechercher visible: " + page.isVisible("btnRechercher") + ")");
                 }
         );
     }
@@ -72,7 +80,7 @@ public class RadioStep {
                 "Clic sur " + nomBouton,
                 "Le bouton doit être cliqué",
                 () -> {
-                    pageRadio.cliquerBtnRechercher();
+                    pageRadio().cliquerBtnRechercher();
                     testManager.setResultatReel("Clic effectué sur " + nomBouton);
                 }
         );
@@ -84,27 +92,25 @@ public class RadioStep {
                 "Saisie recherche",
                 "Saisir: " + terme,
                 () -> {
-                    pageRadio.effectuerRecherche(terme);
+                    pageRadio().effectuerRecherche(terme);
                     testManager.setResultatReel("Recherche: " + terme);
                 }
         );
     }
 
     @Then("Les résultats pour {string} doivent être affichés")
-    public void verifierResultatsRecherche(String terme) throws InterruptedException {
+    public void verifierResultatsRecherche(String terme) {
         executeStep(
                 "Vérification résultats",
                 "Voir les résultats pour: " + terme,
                 () -> {
-                    try {
-                        Thread.sleep(3000);
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
-                    }
-                    String urlAttendue = "https://www.radiofrance.fr/recherche";
-                    String urlReelle = Driver.getCurrentDriver().getCurrentUrl();
-                    assertTrue(urlReelle.startsWith(urlAttendue));
-                    testManager.setResultatReel("Résultats vérifiés pour: " + terme);
+                    String urlAttendue = ServeurFixtures.reecrireUrl("https://www.radiofrance.fr/recherche");
+                    // Remplace l'ancien Thread.sleep(3000) : retourne dès que l'URL de recherche est chargée
+                    pageRadio().attendreUrl(url -> url.startsWith(urlAttendue), Duration.ofSeconds(10), Duration.ofSeconds(3));
+                    ResultatDom page = pageRadio().lireEtatPage();
+                    testManager.setUrl(page.getUrl());
+                    assertTrue(page.getUrl() != null && page.getUrl().startsWith(urlAttendue));
+                    testManager.setResultatReel("Résultats vérifiés pour: " + terme + " - " + page.getTitre());
                 }
         );
     }
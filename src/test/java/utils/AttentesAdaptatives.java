@@ -0,0 +1,195 @@
+package utils;
+
+import org.openqa.selenium.By;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timeouts et intervalles de polling des attentes d'éléments, dérivés du temps que chaque locator a mis
+ * à être prêt lors des exécutions précédentes : timeout = p99 x attente.adaptative.marge, borné par
+ * [attente.adaptative.min.ms, attente.adaptative.plafond.s] ; polling = p50 / 5, entre 20 et 500 ms.
+ * Sans historique suffisant (attente.adaptative.echantillons), le timeout par défaut de l'appelant
+ * s'applique. attente.adaptative=false désactive le mécanisme (le plafond reste appliqué).
+ * Une attente qui expire compte comme un échantillon censuré à la durée attendue : l'élément a mis au
+ * moins ce temps, le timeout appris remonte au lieu de rester sous un ralentissement passager.
+ * <p>
+ * L'historique est partagé entre les forks surefire : à la sauvegarde, seuls les échantillons de
+ * l'exécution sont ajoutés au fichier, sous verrou. Avec attente.adaptative.sortie, ils vont dans un
+ * fichier à part et l'historique chargé reste inchangé (shards, réunis par {@link FusionShards}).
+ */
+public class AttentesAdaptatives {
+    private static final boolean ACTIF = ConfigReader.getBooleanProperty("attente.adaptative", true);
+    private static final Path FICHIER = Paths.get(
+            ConfigReader.getProperty("attente.adaptative.fichier", "target/historique/attentes-locators.tsv"));
+    // Les shards CI y écrivent leurs seuls échantillons, fusionnés ensuite par FusionShards
+    private static final Path SORTIE = Paths.get(ConfigReader.getProperty("attente.adaptative.sortie", FICHIER.toString()));
+    private static final long ECHANTILLONS_MIN = ConfigReader.getIntProperty("attente.adaptative.echantillons", 5);
+    private static final double MARGE = Double.parseDouble(ConfigReader.getProperty("attente.adaptative.marge", "3"));
+    private static final Duration TIMEOUT_MIN = Duration.ofMillis(ConfigReader.getIntProperty("attente.adaptative.min.ms", 1000));
+    private static final Duration PLAFOND = Duration.ofSeconds(ConfigReader.getIntProperty("attente.adaptative.plafond.s", 30));
+    private static final Duration POLLING_DEFAUT = Duration.ofMillis(500);
+    private static final long POLLING_MIN_MS = 20;
+    // Au-delà, l'historique est vieilli (divisé par deux) à la sauvegarde
+    private static final long FENETRE = ConfigReader.getIntProperty("attente.adaptative.fenetre", 1000);
+
+    // Historique chargé + échantillons de l'exécution : sert aux décisions
+    private final Map<String, HistogrammeDurees> historique = new ConcurrentHashMap<>();
+    // Échantillons de l'exécution seulement : ajoutés au fichier à la sauvegarde
+    private final Map<String, HistogrammeDurees> nouveaux = new ConcurrentHashMap<>();
+    private final LongAdder depassements = new LongAdder();
+
+    private static class Holder {
+        private static final AttentesAdaptatives INSTANCE = creerInstance();
+    }
+
+    public static AttentesAdaptatives getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private static AttentesAdaptatives creerInstance() {
+        AttentesAdaptatives attentes = new AttentesAdaptatives();
+        if (ACTIF) {
+            charger(FICHIER, attentes.historique);
+        }
+        return attentes;
+    }
+
+    public Duration timeout(By locator, Duration defaut) {
+        HistogrammeDurees durees = ACTIF ? historique.get(locator.toString()) : null;
+        if (durees == null || durees.getNombre() < ECHANTILLONS_MIN) {
+            return borner(defaut);
+        }
+        Duration adaptee = Duration.ofMillis((long) Math.ceil(durees.percentileMillis(99) * MARGE));
+        return borner(adaptee.compareTo(TIMEOUT_MIN) < 0 ? TIMEOUT_MIN : adaptee);
+    }
+
+    /**
+     * Timeout de repli après l'expiration d'un timeout appris : celui de l'appelant, plafonné.
+     */
+    public Duration timeoutParDefaut(Duration defaut) {
+        return borner(defaut);
+    }
+
+    public Duration polling(By locator) {
+        HistogrammeDurees durees = ACTIF ? historique.get(locator.toString()) : null;
+        if (durees == null || durees.getNombre() < ECHANTILLONS_MIN) {
+            return POLLING_DEFAUT;
+        }
+        long millis = (long) (durees.percentileMillis(50) / 5);
+        return Duration.ofMillis(Math.max(POLLING_MIN_MS, Math.min(POLLING_DEFAUT.toMillis(), millis)));
+    }
+
+    /**
+     * Temps mis par le locator pour être prêt.
+     */
+    public void enregistrer(By locator, long dureeNanos) {
+        if (!ACTIF) return;
+        String cle = locator.toString();
+        historique.computeIfAbsent(cle, k -> new HistogrammeDurees()).enregistrer(dureeNanos);
+        nouveaux.computeIfAbsent(cle, k -> new HistogrammeDurees()).enregistrer(dureeNanos);
+    }
+
+    /**
+     * Attente expirée après {@code dureeNanos} : enregistrée comme si l'élément avait été prêt à ce moment
+     * (borne basse de sa durée réelle).
+     */
+    public void enregistrerDepassement(By locator, long dureeNanos) {
+        if (!ACTIF) return;
+        depassements.increment();
+        enregistrer(locator, dureeNanos);
+    }
+
+    /**
+     * Ajoute les échantillons de l'exécution au fichier attente.adaptative.sortie (par défaut le fichier
+     * d'historique lui-même).
+     */
+    public void sauvegarder() {
+        if (!ACTIF || nouveaux.isEmpty()) return;
+        try {
+            Files.createDirectories(SORTIE.toAbsolutePath().getParent());
+            Path verrou = SORTIE.resolveSibling(SORTIE.getFileName() + ".lock");
+            try (FileChannel canal = FileChannel.open(verrou, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Verrou entre JVM (forks, shards sur un même agent), relâché explicitement
+                FileLock verrouFichier = canal.lock();
+                try {
+                    Map<String, HistogrammeDurees> fusion = new ConcurrentHashMap<>();
+                    charger(SORTIE, fusion);
+                    nouveaux.forEach((cle, durees) -> fusion.computeIfAbsent(cle, k -> new HistogrammeDurees()).fusionner(durees));
+                    ecrire(fusion, SORTIE);
+                } finally {
+                    verrouFichier.release();
+                }
+            }
+            nouveaux.clear();
+        } catch (IOException e) {
+            System.err.println("Historique des attentes non sauvegardé: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Réunit plusieurs fichiers d'historique (historique restauré + échantillons de chaque shard) en un seul.
+     */
+    public static void fusionner(List<Path> fichiers, Path sortie) throws IOException {
+        Map<String, HistogrammeDurees> fusion = new ConcurrentHashMap<>();
+        for (Path fichier : fichiers) {
+            charger(fichier, fusion);
+        }
+        if (fusion.isEmpty()) return;
+        Files.createDirectories(sortie.toAbsolutePath().getParent());
+        ecrire(fusion, sortie);
+    }
+
+    private static void ecrire(Map<String, HistogrammeDurees> durees, Path fichier) throws IOException {
+        Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaire, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, HistogrammeDurees> entree : durees.entrySet()) {
+                if (entree.getValue().getNombre() > 2 * FENETRE) {
+                    entree.getValue().vieillir();
+                }
+                writer.write(TransitionsEtapes.encoder(entree.getKey()) + "\t" + entree.getValue().serialiser());
+                writer.newLine();
+            }
+        }
+        Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Format : une ligne par locator, "locator<TAB>histogramme sérialisé"
+    private static void charger(Path fichier, Map<String, HistogrammeDurees> cible) {
+        if (!Files.exists(fichier)) return;
+        try (BufferedReader reader = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            String ligne;
+            while ((ligne = reader.readLine()) != null) {
+                int tab = ligne.indexOf('\t');
+                if (tab < 0) continue;
+                cible.computeIfAbsent(TransitionsEtapes.decoder(ligne.substring(0, tab)), k -> new HistogrammeDurees())
+                        .fusionner(ligne.substring(tab + 1));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Historique des attentes illisible (" + fichier + "): " + e.getMessage());
+        }
+    }
+
+    private static Duration borner(Duration timeout) {
+        return timeout.compareTo(PLAFOND) > 0 ? PLAFOND : timeout;
+    }
+
+    public String resume() {
+        return String.format("Attentes adaptatives: %d locator(s) en historique, %d mesuré(s) pendant l'exécution, %d attente(s) expirée(s)",
+                historique.size(), nouveaux.size(), depassements.sum());
+    }
+}
@@ -0,0 +1,93 @@
+package utils;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Éléments déjà résolus pour un driver, réutilisés tant que la page n'a pas changé : une action sur un
+ * élément en cache évite l'attente et le findElement (un aller-retour WebDriver chacun).
+ * Une entrée est valide pour la génération de page où elle a été résolue ; {@link #nouvellePage()}
+ * (navigation, retour au pool) les invalide toutes, une StaleElementReferenceException invalide la sienne.
+ */
+public class CacheElements {
+    private static final Map<WebDriver, CacheElements> PAR_DRIVER = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final boolean ACTIF = ConfigReader.getBooleanProperty("elements.cache", true);
+
+    // Statistiques de l'exécution, tous drivers confondus
+    private static final LongAdder succes = new LongAdder();
+    private static final LongAdder echecs = new LongAdder();
+
+    private final Map<By, Entree> elements = new ConcurrentHashMap<>();
+    private volatile long generation;
+
+    private static class Entree {
+        final long generation;
+        final WebElement element;
+
+        Entree(long generation, WebElement element) {
+            this.generation = generation;
+            this.element = element;
+        }
+    }
+
+    /**
+     * Cache du driver, créé au premier appel.
+     */
+    public static CacheElements pour(WebDriver driver) {
+        synchronized (PAR_DRIVER) {
+            return PAR_DRIVER.computeIfAbsent(driver, d -> new CacheElements());
+        }
+    }
+
+    /**
+     * Élément résolu sur la page courante, ou null ; compte un succès ou un échec.
+     */
+    public WebElement get(By locator) {
+        Entree entree = ACTIF ? elements.get(locator) : null;
+        if (entree == null || entree.generation != generation) {
+            echecs.increment();
+            return null;
+        }
+        succes.increment();
+        return entree.element;
+    }
+
+    public void put(By locator, WebElement element) {
+        if (ACTIF) {
+            elements.put(locator, new Entree(generation, element));
+        }
+    }
+
+    public void invalider(By locator) {
+        elements.remove(locator);
+    }
+
+    /**
+     * La page a changé : tous les éléments en cache sont périmés.
+     */
+    public void nouvellePage() {
+        generation++;
+        elements.clear();
+    }
+
+    public static long getSucces() {
+        return succes.sum();
+    }
+
+    public static long getEchecs() {
+        return echecs.sum();
+    }
+
+    public static String resume() {
+        long total = getSucces() + getEchecs();
+        return String.format("Cache d'éléments: %d succès, %d échecs (%.0f %% de résolutions évitées)",
+                getSucces(), getEchecs(), total == 0 ? 0.0 : 100.0 * getSucces() / total);
+    }
+}
@@ -24,4 +24,25 @@ public class ConfigReader {
     public static String getProperty(String key){
         return properties.getProperty(key);
     }
+
+    // -Dkey=... a priorité sur le fichier, sinon la valeur par défaut
+    public static String getProperty(String key, String defaultValue){
+        String value = System.getProperty(key);
+        if (value == null && properties != null) {
+            value = properties.getProperty(key);
+        }
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    public static int getIntProperty(String key, int defaultValue){
+        try {
+            return Integer.parseInt(getProperty(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBooleanProperty(String key, boolean defaultValue){
+        return Boolean.parseBoolean(getProperty(key, String.valueOf(defaultValue)));
+    }
 }
\ No newline at end of file
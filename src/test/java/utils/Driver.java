@@ -2,14 +2,19 @@ package utils;
 
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.remote.options.BaseOptions;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.edge.EdgeDriver;
 
+import org.openqa.selenium.support.ui.WebDriverWait;
+
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.Duration;
 
 
 
@@ -18,7 +23,12 @@ public class Driver {
     }
 
     public static AndroidDriver Android;
-    public static WebDriver Web;
+    public static final String APP_PACKAGE_ANDROID = "com.radiofrance.radio.radiofrance.android";
+    private static SessionAndroid sessionAndroid;
+
+    // Session web du scénario courant : chaque thread emprunte la sienne au pool
+    private static final ThreadLocal<WebDriver> WEB = new ThreadLocal<>();
+    private static WebDriverPool poolWeb;
 
     public static BaseOptions getAndroidApps() {
         BaseOptions options = new BaseOptions()
@@ -27,7 +37,7 @@ public class Driver {
                 .amend("appium:deviceName", "emulator-5554")
                 .amend("appium:automationName", "UiAutomator2")
                 //.amend("appium:app","/Users/hakan/IdeaProjects/AliExpressWebAndMobil/apps/radio-france.apk")
-                .amend("appium:appPackage", "com.radiofrance.radio.radiofrance.android")
+                .amend("appium:appPackage", APP_PACKAGE_ANDROID)
                 .amend("appium:appActivity", "com.radiofrance.radio.radiofrance.android.screen.splash.SplashActivity")
                 .amend("appium:noReset", true)
                 .amend("appium:autoGrantPermissions", true)
@@ -41,10 +51,24 @@ public class Driver {
 
     public static AndroidDriver getAndroidDriver(BaseOptions capabilities)
             throws MalformedURLException {
-        URL remoteUrl = new URL("http://127.0.0.1:4723/");
+        URL remoteUrl = new URL(ConfigReader.getProperty("appium.url", "http://127.0.0.1:4723/"));
         return new AndroidDriver(remoteUrl, capabilities);
     }
 
+    /**
+     * Session Android partagée par les scénarios, créée au premier appel (voir {@link SessionAndroid}).
+     *
+     * @return session
+     */
+    public static synchronized SessionAndroid getSessionAndroid() {
+        if (sessionAndroid == null) {
+            sessionAndroid = new SessionAndroid(() -> getAndroidDriver(getAndroidApps()), APP_PACKAGE_ANDROID);
+            SessionAndroid session = sessionAndroid;
+            Runtime.getRuntime().addShutdownHook(new Thread(session::fermer));
+        }
+        return sessionAndroid;
+    }
+
     public static WebDriver getWebDriver(String browser) {
         WebDriver driver;
         switch (browser.toLowerCase()) {
@@ -54,8 +78,11 @@ public class Driver {
                 chromeOptions.addArguments("--headless"); // Enable headless mode
                 chromeOptions.addArguments("--disable-gpu");
                 chromeOptions.addArguments("--window-size=1920,1080");
+                chromeOptions.setPageLoadStrategy(getPageLoadStrategy());
 
                 driver = new ChromeDriver(chromeOptions);
+                // Blocage analytics / publicité / médias (reseau.blocage.*)
+                InterceptionReseau.configurer((ChromeDriver) driver);
                 break;
             case "firefox":
                 driver = new FirefoxDriver();
@@ -74,6 +101,81 @@ public class Driver {
 
     }
 
+    /**
+     * navigateur.pageLoadStrategy : normal (défaut), eager ou none. Avec eager/none, driver.get rend la
+     * main avant la fin du chargement : utiliser {@link #attendrePagePrete(WebDriver)}.
+     *
+     * @return strategy
+     */
+    public static PageLoadStrategy getPageLoadStrategy() {
+        String strategie = ConfigReader.getProperty("navigateur.pageLoadStrategy", "normal");
+        try {
+            return PageLoadStrategy.fromString(strategie.toLowerCase());
+        } catch (IllegalArgumentException e) {
+            return PageLoadStrategy.NORMAL;
+        }
+    }
+
+    /**
+     * Attend que la page soit exploitable selon navigateur.pret.script (expression JavaScript booléenne).
+     * Sans effet avec la stratégie normal, où driver.get attend déjà le chargement complet.
+     *
+     * @param driver driver
+     */
+    public static void attendrePagePrete(WebDriver driver) {
+        if (getPageLoadStrategy() == PageLoadStrategy.NORMAL || !(driver instanceof JavascriptExecutor)) return;
+        String script = "return " + ConfigReader.getProperty("navigateur.pret.script",
+                "document.readyState !== 'loading' && !!document.body");
+        new WebDriverWait(driver, Duration.ofSeconds(ConfigReader.getIntProperty("navigateur.pret.timeout.s", 15)))
+                .until(d -> Boolean.TRUE.equals(((JavascriptExecutor) d).executeScript(script)));
+    }
+
+    /**
+     * Pool partagé des sessions web, créé au premier appel.
+     * Taille réglable via driver.pool.min / driver.pool.max (configuration.properties ou -D).
+     *
+     * @return pool
+     */
+    public static synchronized WebDriverPool getPoolWeb() {
+        if (poolWeb == null) {
+            String browser = ConfigReader.getProperty("browser", "chrome");
+            poolWeb = new WebDriverPool(
+                    () -> getWebDriver(browser),
+                    ConfigReader.getIntProperty("driver.pool.min", 1),
+                    ConfigReader.getIntProperty("driver.pool.max", 3),
+                    ConfigReader.getIntProperty("driver.pool.attente.ms", 60000));
+            WebDriverPool pool = poolWeb;
+            Runtime.getRuntime().addShutdownHook(new Thread(pool::fermer));
+        }
+        return poolWeb;
+    }
+
+    /**
+     * Emprunte une session web au pool pour le thread courant.
+     *
+     * @return driver
+     */
+    public static WebDriver emprunterWeb() {
+        WebDriver driver = WEB.get();
+        if (driver == null) {
+            driver = getPoolWeb().emprunter();
+            WEB.set(driver);
+        }
+        return driver;
+    }
+
+    /**
+     * Rend la session web du thread courant au pool.
+     */
+    public static void rendreWeb() {
+        WebDriver driver = WEB.get();
+        if (driver != null) {
+            WEB.remove();
+            CacheElements.pour(driver).nouvellePage();
+            getPoolWeb().rendre(driver);
+        }
+    }
+
     /**
      * get driver.
      *
@@ -83,7 +185,7 @@ public class Driver {
         if (OS.OS.equals("Android")) {
             return Android;
         } else if (OS.OS.equals("Web")) {
-            return Web;
+            return WEB.get();
         } else {
             throw new IllegalStateException("Unsupported operating system: " + OS.OS);
         }
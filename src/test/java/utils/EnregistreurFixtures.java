@@ -0,0 +1,193 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Capture, via le protocole DevTools, des réponses HTTP reçues pendant un scénario
+ * (fixtures.mode=enregistrement). Un enregistreur par driver : les listeners survivent au retour
+ * du driver dans le pool, seul le scénario courant change.
+ * Format sur disque : ServeurFixtures.DOSSIER/&lt;scénario&gt;/NNNN.bin + index.properties.
+ */
+public class EnregistreurFixtures {
+    public static final String INDEX = "index.properties";
+    private static final Map<WebDriver, EnregistreurFixtures> ACTIFS = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final List<String> TYPES_TEXTE = List.of("text/", "javascript", "json", "xml");
+
+    private final DevTools devTools;
+    // requestId -> réponse en attente de son corps
+    private final Map<String, Map<String, Object>> enAttente = new ConcurrentHashMap<>();
+    private volatile List<Echange> echanges;
+
+    private static class Echange {
+        final URI uri;
+        final String type;
+        final int statut;
+        final byte[] corps;
+
+        Echange(URI uri, String type, int statut, byte[] corps) {
+            this.uri = uri;
+            this.type = type;
+            this.statut = statut;
+            this.corps = corps;
+        }
+    }
+
+    private EnregistreurFixtures(DevTools devTools) {
+        this.devTools = devTools;
+    }
+
+    /**
+     * Enregistreur attaché à ce driver, créé au premier appel ; null hors mode enregistrement ou hors Chrome.
+     */
+    public static EnregistreurFixtures pour(WebDriver driver) {
+        if (!ServeurFixtures.isEnregistrement() || !(driver instanceof ChromeDriver)) return null;
+        synchronized (ACTIFS) {
+            EnregistreurFixtures enregistreur = ACTIFS.get(driver);
+            if (enregistreur == null) {
+                try {
+                    enregistreur = creer((ChromeDriver) driver);
+                    ACTIFS.put(driver, enregistreur);
+                } catch (Exception e) {
+                    System.err.println("Enregistrement des fixtures indisponible: " + e.getMessage());
+                }
+            }
+            return enregistreur;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EnregistreurFixtures creer(ChromeDriver driver) {
+        DevTools devTools = driver.getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        EnregistreurFixtures enregistreur = new EnregistreurFixtures(devTools);
+
+        devTools.addListener(new Event<>("Network.responseReceived", input -> input.<Map<String, Object>>read(Json.MAP_TYPE)),
+                evenement -> {
+                    Map<String, Object> reponse = (Map<String, Object>) evenement.get("response");
+                    if (enregistreur.echanges != null && reponse != null
+                            && String.valueOf(reponse.get("url")).startsWith("http")) {
+                        enregistreur.enAttente.put(String.valueOf(evenement.get("requestId")), reponse);
+                    }
+                });
+        devTools.addListener(new Event<>("Network.loadingFinished", input -> input.<Map<String, Object>>read(Json.MAP_TYPE)),
+                evenement -> enregistreur.capturerCorps(String.valueOf(evenement.get("requestId"))));
+        devTools.send(new Command<>("Network.enable", Map.of()));
+        return enregistreur;
+    }
+
+    public void demarrer() {
+        enAttente.clear();
+        echanges = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    private void capturerCorps(String requestId) {
+        Map<String, Object> reponse = enAttente.remove(requestId);
+        List<Echange> courant = echanges;
+        if (reponse == null || courant == null) return;
+        int statut = ((Number) reponse.getOrDefault("status", 200)).intValue();
+        if (statut >= 300 && statut < 400) return;
+
+        try {
+            Map<String, Object> resultat = devTools.send(new Command<>("Network.getResponseBody",
+                    Map.of("requestId", requestId), input -> input.<Map<String, Object>>read(Json.MAP_TYPE)));
+            String corps = String.valueOf(resultat.get("body"));
+            byte[] octets = Boolean.TRUE.equals(resultat.get("base64Encoded"))
+                    ? Base64.getDecoder().decode(corps)
+                    : corps.getBytes(StandardCharsets.UTF_8);
+            courant.add(new Echange(URI.create(String.valueOf(reponse.get("url"))),
+                    String.valueOf(reponse.getOrDefault("mimeType", "application/octet-stream")), statut, octets));
+        } catch (Exception e) {
+            // Corps indisponible (requête annulée, flux) : la réponse n'est pas enregistrée
+        }
+    }
+
+    /**
+     * Écrit les échanges du scénario sous ServeurFixtures.DOSSIER ; l'enregistrement précédent est remplacé.
+     *
+     * @param urlPrincipale URL de la page d'accueil : son hôte est servi à la racine en rejeu
+     */
+    public void sauvegarder(String nomScenario, String urlPrincipale) {
+        List<Echange> courant = echanges;
+        echanges = null;
+        if (courant == null || courant.isEmpty()) return;
+
+        String hotePrincipal = URI.create(urlPrincipale).getHost();
+        Set<String> hotes = new TreeSet<>(Comparator.comparing(String::length).reversed().thenComparing(h -> h));
+        synchronized (courant) {
+            for (Echange echange : courant) {
+                hotes.add(echange.uri.getHost());
+            }
+        }
+
+        Path dossier = ServeurFixtures.DOSSIER.resolve(nomFichier(nomScenario));
+        try {
+            Files.createDirectories(dossier);
+            try (var anciens = Files.newDirectoryStream(dossier)) {
+                for (Path ancien : anciens) {
+                    Files.delete(ancien);
+                }
+            }
+
+            Properties index = new Properties();
+            int numero = 0;
+            synchronized (courant) {
+                for (Echange echange : courant) {
+                    String id = String.format("%04d", numero++);
+                    byte[] corps = isTexte(echange.type)
+                            ? reecrireUrls(new String(echange.corps, StandardCharsets.UTF_8), hotes, hotePrincipal)
+                                    .getBytes(StandardCharsets.UTF_8)
+                            : echange.corps;
+                    Files.write(dossier.resolve(id + ".bin"), corps);
+                    index.setProperty(id + ".url", echange.uri.toString());
+                    index.setProperty(id + ".chemin", ServeurFixtures.cheminLocal(echange.uri, hotePrincipal));
+                    index.setProperty(id + ".type", echange.type);
+                    index.setProperty(id + ".statut", String.valueOf(echange.statut));
+                }
+            }
+            try (Writer writer = Files.newBufferedWriter(dossier.resolve(INDEX), StandardCharsets.UTF_8)) {
+                index.store(writer, "Fixtures enregistrees: " + nomScenario);
+            }
+            System.out.println("Fixtures enregistrées: " + numero + " réponse(s) dans " + dossier);
+        } catch (IOException e) {
+            System.err.println("Enregistrement des fixtures impossible: " + e.getMessage());
+        }
+    }
+
+    // URL absolues -> chemins du serveur de rejeu ; les hôtes les plus longs d'abord (sous-domaines)
+    static String reecrireUrls(String contenu, Collection<String> hotes, String hotePrincipal) {
+        for (String hote : hotes) {
+            String cible = hote.equals(hotePrincipal) ? "" : ServeurFixtures.PREFIXE_HOTE + hote;
+            contenu = contenu.replace("https://" + hote, cible)
+                    .replace("http://" + hote, cible)
+                    .replace("https:\\/\\/" + hote, cible.replace("/", "\\/"))
+                    .replace("\"//" + hote, "\"" + cible);
+        }
+        return contenu;
+    }
+
+    private static boolean isTexte(String type) {
+        for (String prefixe : TYPES_TEXTE) {
+            if (type.contains(prefixe)) return true;
+        }
+        return false;
+    }
+
+    static String nomFichier(String nomScenario) {
+        String nom = Objects.toString(nomScenario, "scenario").replaceAll("[^\\p{L}\\p{N}._-]+", "_");
+        return nom.isEmpty() ? "scenario" : nom;
+    }
+}
@@ -0,0 +1,214 @@
+package utils;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Cookies et localStorage de consentement capturés après un premier clic sur le bandeau, puis injectés
+ * dans les sessions suivantes avant la navigation : les scénarios démarrent sans bandeau.
+ * L'état est partagé par l'exécution et conservé dans consentement.fichier entre deux exécutions.
+ */
+public class EtatConsentement {
+    private static final Path FICHIER = Paths.get(
+            ConfigReader.getProperty("consentement.fichier", "target/consentement/etat-consentement.properties"));
+    private static final Pattern CLES_CONSENTEMENT = Pattern.compile(
+            ConfigReader.getProperty("consentement.cles", "(?i).*(didomi|consent|cmp|tcf|cookie).*"));
+    private static final String SCRIPT_LECTURE_STORAGE =
+            "var r = {}; for (var i = 0; i < localStorage.length; i++) {" +
+            "  var k = localStorage.key(i); r[k] = localStorage.getItem(k); } return r;";
+
+    private static final AtomicReference<EtatConsentement> cache = new AtomicReference<>();
+    private static volatile boolean fichierLu;
+
+    private final List<Cookie> cookies;
+    private final Map<String, String> localStorage;
+
+    EtatConsentement(List<Cookie> cookies, Map<String, String> localStorage) {
+        this.cookies = cookies;
+        this.localStorage = localStorage;
+    }
+
+    public static boolean isActif() {
+        return ConfigReader.getBooleanProperty("consentement.cache", true);
+    }
+
+    /**
+     * État en cache, lu depuis le fichier au premier appel ; null s'il n'y en a pas encore.
+     */
+    public static EtatConsentement getCache() {
+        if (!fichierLu) {
+            synchronized (EtatConsentement.class) {
+                if (!fichierLu) {
+                    cache.compareAndSet(null, charger(FICHIER));
+                    fichierLu = true;
+                }
+            }
+        }
+        return cache.get();
+    }
+
+    /**
+     * Capture l'état de consentement de la page courante et le conserve pour les sessions suivantes.
+     */
+    public static void capturerEtConserver(WebDriver driver) {
+        try {
+            EtatConsentement etat = capturer(driver);
+            if (etat.cookies.isEmpty() && etat.localStorage.isEmpty()) return;
+            cache.set(etat);
+            etat.sauvegarder(FICHIER);
+        } catch (Exception e) {
+            System.err.println("Capture du consentement impossible: " + e.getMessage());
+        }
+    }
+
+    /**
+     * L'état injecté n'a pas suffi (bandeau toujours affiché) : il est oublié et sera recapturé.
+     */
+    public static void invalider() {
+        cache.set(null);
+        try {
+            Files.deleteIfExists(FICHIER);
+        } catch (IOException e) {
+            System.err.println("Suppression du consentement impossible: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ouvre une page légère de l'origine cible (robots.txt), y dépose cookies et localStorage.
+     * L'appelant navigue ensuite vers la vraie page.
+     *
+     * @return false si l'injection a échoué : l'appelant garde le chemin par clic
+     */
+    public boolean injecter(WebDriver driver, String urlCible) {
+        try {
+            URI uri = URI.create(urlCible);
+            driver.get(uri.getScheme() + "://" + uri.getHost() + "/robots.txt");
+            for (Cookie cookie : cookies) {
+                driver.manage().addCookie(cookie);
+            }
+            if (!localStorage.isEmpty()) {
+                StringBuilder script = new StringBuilder();
+                List<String> valeurs = new ArrayList<>();
+                for (Map.Entry<String, String> entree : localStorage.entrySet()) {
+                    script.append("localStorage.setItem(arguments[").append(valeurs.size()).append("], arguments[")
+                            .append(valeurs.size() + 1).append("]);");
+                    valeurs.add(entree.getKey());
+                    valeurs.add(entree.getValue());
+                }
+                ((JavascriptExecutor) driver).executeScript(script.toString(), valeurs.toArray());
+            }
+            return true;
+        } catch (Exception e) {
+            System.err.println("Injection du consentement impossible: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EtatConsentement capturer(WebDriver driver) {
+        List<Cookie> cookies = new ArrayList<>();
+        for (Cookie cookie : driver.manage().getCookies()) {
+            if (CLES_CONSENTEMENT.matcher(cookie.getName()).matches()) {
+                cookies.add(cookie);
+            }
+        }
+
+        Map<String, String> storage = new LinkedHashMap<>();
+        Object resultat = ((JavascriptExecutor) driver).executeScript(SCRIPT_LECTURE_STORAGE);
+        if (resultat instanceof Map) {
+            ((Map<String, Object>) resultat).forEach((cle, valeur) -> {
+                if (CLES_CONSENTEMENT.matcher(cle).matches() && valeur != null) {
+                    storage.put(cle, valeur.toString());
+                }
+            });
+        }
+        return new EtatConsentement(cookies, storage);
+    }
+
+    // Format Properties : cookie.<i>.<champ> et storage.<i>.cle / storage.<i>.valeur
+    private void sauvegarder(Path fichier) throws IOException {
+        Properties proprietes = new Properties();
+        for (int i = 0; i < cookies.size(); i++) {
+            Cookie cookie = cookies.get(i);
+            String prefixe = "cookie." + i + ".";
+            proprietes.setProperty(prefixe + "nom", cookie.getName());
+            proprietes.setProperty(prefixe + "valeur", cookie.getValue());
+            proprietes.setProperty(prefixe + "chemin", Objects.toString(cookie.getPath(), "/"));
+            proprietes.setProperty(prefixe + "securise", String.valueOf(cookie.isSecure()));
+            proprietes.setProperty(prefixe + "httpOnly", String.valueOf(cookie.isHttpOnly()));
+            if (cookie.getDomain() != null) {
+                proprietes.setProperty(prefixe + "domaine", cookie.getDomain());
+            }
+            if (cookie.getExpiry() != null) {
+                proprietes.setProperty(prefixe + "expiration", String.valueOf(cookie.getExpiry().getTime()));
+            }
+            if (cookie.getSameSite() != null) {
+                proprietes.setProperty(prefixe + "sameSite", cookie.getSameSite());
+            }
+        }
+        int i = 0;
+        for (Map.Entry<String, String> entree : localStorage.entrySet()) {
+            proprietes.setProperty("storage." + i + ".cle", entree.getKey());
+            proprietes.setProperty("storage." + i + ".valeur", entree.getValue());
+            i++;
+        }
+
+        Files.createDirectories(fichier.getParent());
+        try (Writer writer = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+            proprietes.store(writer, "Etat de consentement capture par les tests");
+        }
+    }
+
+    private static EtatConsentement charger(Path fichier) {
+        if (!Files.exists(fichier)) return null;
+        Properties proprietes = new Properties();
+        try (Reader reader = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            proprietes.load(reader);
+        } catch (IOException e) {
+            System.err.println("Consentement illisible (" + fichier + "): " + e.getMessage());
+            return null;
+        }
+
+        List<Cookie> cookies = new ArrayList<>();
+        Date maintenant = new Date();
+        for (int i = 0; proprietes.containsKey("cookie." + i + ".nom"); i++) {
+            String prefixe = "cookie." + i + ".";
+            String expiration = proprietes.getProperty(prefixe + "expiration");
+            Date dateExpiration = expiration != null ? new Date(Long.parseLong(expiration)) : null;
+            if (dateExpiration != null && dateExpiration.before(maintenant)) continue;
+
+            Cookie.Builder builder = new Cookie.Builder(
+                    proprietes.getProperty(prefixe + "nom"), proprietes.getProperty(prefixe + "valeur"))
+                    .path(proprietes.getProperty(prefixe + "chemin", "/"))
+                    .isSecure(Boolean.parseBoolean(proprietes.getProperty(prefixe + "securise")))
+                    .isHttpOnly(Boolean.parseBoolean(proprietes.getProperty(prefixe + "httpOnly")))
+                    .expiresOn(dateExpiration);
+            if (proprietes.getProperty(prefixe + "domaine") != null) {
+                builder.domain(proprietes.getProperty(prefixe + "domaine"));
+            }
+            if (proprietes.getProperty(prefixe + "sameSite") != null) {
+                builder.sameSite(proprietes.getProperty(prefixe + "sameSite"));
+            }
+            cookies.add(builder.build());
+        }
+
+        Map<String, String> storage = new LinkedHashMap<>();
+        for (int i = 0; proprietes.containsKey("storage." + i + ".cle"); i++) {
+            storage.put(proprietes.getProperty("storage." + i + ".cle"), proprietes.getProperty("storage." + i + ".valeur"));
+        }
+        return cookies.isEmpty() && storage.isEmpty() ? null : new EtatConsentement(cookies, storage);
+    }
+}
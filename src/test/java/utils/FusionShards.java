@@ -0,0 +1,192 @@
+package utils;
+
+import org.openqa.selenium.json.Json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Fusion des résultats de plusieurs shards (un dossier "target" par agent) en un seul jeu de rapports :
+ * <ul>
+ * <li>cucumber*.json : features regroupées par uri, scénarios concaténés ;</li>
+ * <li>allure-results : fichiers copiés (noms uniques par construction) ;</li>
+ * <li>rapports-tests : lignes de résultats concaténées dans un seul classeur ;</li>
+ * <li>historique/executions : segments réunis (ceux restaurés du build précédent n'existent qu'une fois)
+ * puis compactés, pour le score d'instabilité et l'ordonnancement du build suivant ;</li>
+ * <li>historique/attentes-locators.tsv : historique des attentes restauré (le même sur chaque shard)
+ * plus les échantillons de chaque shard (historique/attentes-shard.tsv) ;</li>
+ * <li>{@value RepartitionShards#FICHIER_DUREES} : durée moyenne de chaque scénario, pour le découpage
+ * de la prochaine exécution.</li>
+ * </ul>
+ * Usage : {@code FusionShards <dossier de sortie> <dossier shard>...}
+ */
+public class FusionShards {
+    private static final String[] RAPPORTS_CUCUMBER = {"cucumber.json", "cucumber-relances.json", "cucumber-quarantaine.json"};
+    private static final String ALLURE = "allure-results";
+    private static final String EXCEL = "rapports-tests";
+    private static final String HISTORIQUE = "historique/executions";
+    private static final String ATTENTES = "historique/attentes-locators.tsv";
+    private static final String ATTENTES_SHARD = "historique/attentes-shard.tsv";
+
+    private final Json json = new Json();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: FusionShards <dossier de sortie> <dossier shard>...");
+            System.exit(2);
+        }
+        List<Path> shards = Arrays.stream(args).skip(1).map(Paths::get).collect(Collectors.toList());
+        new FusionShards().fusionner(shards, Paths.get(args[0]));
+    }
+
+    public void fusionner(List<Path> shards, Path sortie) throws IOException {
+        Files.createDirectories(sortie);
+        for (String rapport : RAPPORTS_CUCUMBER) {
+            List<Map<String, Object>> features = fusionnerCucumber(shards, rapport);
+            if (features == null) continue;
+            Files.writeString(sortie.resolve(rapport), json.toJson(features), StandardCharsets.UTF_8);
+            if (rapport.equals(RAPPORTS_CUCUMBER[0])) {
+                ecrireDurees(features, sortie.resolve(RepartitionShards.FICHIER_DUREES));
+            }
+        }
+        int allure = copierAllure(shards, sortie.resolve(ALLURE));
+        int segments = fusionnerHistorique(shards, sortie.resolve(HISTORIQUE));
+        fusionnerAttentes(shards, sortie.resolve(ATTENTES));
+
+        List<Path> classeurs = new ArrayList<>();
+        for (Path shard : shards) {
+            Path dossier = shard.resolve(EXCEL);
+            if (!Files.isDirectory(dossier)) continue;
+            try (Stream<Path> fichiers = Files.list(dossier)) {
+                fichiers.filter(f -> f.toString().endsWith(".xlsx")).sorted().forEach(classeurs::add);
+            }
+        }
+        if (!classeurs.isEmpty()) {
+            TestManager.fusionnerRapports(classeurs, sortie.resolve(EXCEL)
+                    .resolve(ConfigReader.getProperty("rapport.nom", "RadioFrance") + "_shards.xlsx"));
+        }
+        System.out.printf("Fusion de %d shard(s): %d résultat(s) Allure, %d classeur(s) Excel, %d segment(s) d'historique%n",
+                shards.size(), allure, classeurs.size(), segments);
+    }
+
+    /**
+     * @return null si aucun shard ne contient ce rapport
+     */
+    private List<Map<String, Object>> fusionnerCucumber(List<Path> shards, String nomRapport) throws IOException {
+        Map<String, Map<String, Object>> parUri = new TreeMap<>();
+        boolean trouve = false;
+        for (Path shard : shards) {
+            Path rapport = shard.resolve(nomRapport);
+            if (!Files.exists(rapport) || Files.size(rapport) == 0) continue;
+            trouve = true;
+            List<Map<String, Object>> features = json.toType(Files.readString(rapport, StandardCharsets.UTF_8), Json.LIST_OF_MAPS_TYPE);
+            for (Map<String, Object> feature : features) {
+                Map<String, Object> fusion = parUri.computeIfAbsent(String.valueOf(feature.get("uri")), uri -> {
+                    Map<String, Object> copie = new LinkedHashMap<>(feature);
+                    copie.put("elements", new ArrayList<>());
+                    return copie;
+                });
+                @SuppressWarnings("unchecked")
+                List<Object> elements = (List<Object>) fusion.get("elements");
+                Object ajouts = feature.get("elements");
+                if (ajouts instanceof Collection) {
+                    elements.addAll((Collection<?>) ajouts);
+                }
+            }
+        }
+        return trouve ? new ArrayList<>(parUri.values()) : null;
+    }
+
+    // Durée d'un scénario = somme des étapes et hooks (ns dans le rapport Cucumber)
+    private static void ecrireDurees(List<Map<String, Object>> features, Path fichier) throws IOException {
+        Map<String, double[]> parScenario = new TreeMap<>();
+        for (Map<String, Object> feature : features) {
+            for (Map<String, Object> scenario : liste(feature.get("elements"))) {
+                if (!"scenario".equals(scenario.get("type"))) continue;
+                long nanos = 0;
+                for (String section : new String[]{"before", "steps", "after"}) {
+                    for (Map<String, Object> etape : liste(scenario.get(section))) {
+                        Object resultat = etape.get("result");
+                        if (resultat instanceof Map && ((Map<?, ?>) resultat).get("duration") instanceof Number) {
+                            nanos += ((Number) ((Map<?, ?>) resultat).get("duration")).longValue();
+                        }
+                    }
+                }
+                double[] cumul = parScenario.computeIfAbsent(
+                        RelanceScenarios.nomDeBase(String.valueOf(scenario.get("name"))), k -> new double[2]);
+                cumul[0] += nanos / 1e6;
+                cumul[1]++;
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, double[]> entree : parScenario.entrySet()) {
+                writer.write(TransitionsEtapes.encoder(entree.getKey()) + "\t"
+                        + String.format(Locale.ROOT, "%.1f", entree.getValue()[0] / entree.getValue()[1]));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static int copierAllure(List<Path> shards, Path cible) throws IOException {
+        int copies = 0;
+        for (Path shard : shards) {
+            Path source = shard.resolve(ALLURE);
+            if (!Files.isDirectory(source)) continue;
+            Files.createDirectories(cible);
+            try (Stream<Path> fichiers = Files.list(source)) {
+                for (Path fichier : (Iterable<Path>) fichiers::iterator) {
+                    Files.copy(fichier, cible.resolve(fichier.getFileName().toString()), StandardCopyOption.REPLACE_EXISTING);
+                    copies++;
+                }
+            }
+        }
+        return copies;
+    }
+
+    // Les shards ne compactent pas (historique.compaction.seuil élevé) : chaque segment a un nom unique
+    // (horodatage + pid), ceux hérités du build précédent sont identiques d'un shard à l'autre
+    private static int fusionnerHistorique(List<Path> shards, Path cible) throws IOException {
+        int copies = 0;
+        for (Path shard : shards) {
+            Path source = shard.resolve(HISTORIQUE);
+            if (!Files.isDirectory(source)) continue;
+            Files.createDirectories(cible);
+            try (Stream<Path> fichiers = Files.list(source)) {
+                for (Path fichier : (Iterable<Path>) fichiers::iterator) {
+                    Path destination = cible.resolve(fichier.getFileName().toString());
+                    if (!fichier.toString().endsWith(".seg") || Files.exists(destination)) continue;
+                    Files.copy(fichier, destination);
+                    copies++;
+                }
+            }
+        }
+        if (Files.isDirectory(cible)) {
+            new HistoriqueExecutions(cible, ConfigReader.getIntProperty("historique.segment.taille", 8 * 1024 * 1024))
+                    .fermer(ConfigReader.getIntProperty("historique.compaction.seuil", 8),
+                            ConfigReader.getIntProperty("historique.retention.jours", 90));
+        }
+        return copies;
+    }
+
+    // Shards lancés avec -Dattente.adaptative.sortie=target/historique/attentes-shard.tsv : leur
+    // attentes-locators.tsv est l'historique restauré, inchangé, à ne compter qu'une fois
+    private static void fusionnerAttentes(List<Path> shards, Path cible) throws IOException {
+        List<Path> fichiers = new ArrayList<>();
+        shards.stream().map(shard -> shard.resolve(ATTENTES)).filter(Files::exists).findFirst().ifPresent(fichiers::add);
+        shards.stream().map(shard -> shard.resolve(ATTENTES_SHARD)).filter(Files::exists).forEach(fichiers::add);
+        AttentesAdaptatives.fusionner(fichiers, cible);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> liste(Object valeur) {
+        return valeur instanceof List ? (List<Map<String, Object>>) valeur : Collections.emptyList();
+    }
+}
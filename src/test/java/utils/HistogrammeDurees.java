@@ -0,0 +1,115 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramme compact de durées (résolution microseconde, précision relative ~6 %).
+ * Les seaux sont log-linéaires : 16 sous-seaux par puissance de deux, soit quelques Ko par nom
+ * d'étape quel que soit le nombre d'échantillons. Enregistrement sans verrou.
+ */
+public class HistogrammeDurees {
+    private static final int SOUS_SEAUX = 16;
+    // 2^42 µs ≈ 50 jours : largement au-delà d'une étape de test
+    private static final int GROUPES = 42;
+
+    private final AtomicLongArray seaux = new AtomicLongArray(GROUPES * SOUS_SEAUX);
+    private final AtomicLong nombre = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void enregistrer(long dureeNanos) {
+        long micros = Math.max(0, dureeNanos / 1_000);
+        seaux.incrementAndGet(index(micros));
+        nombre.incrementAndGet();
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getNombre() {
+        return nombre.get();
+    }
+
+    public double getMaxMillis() {
+        return maxMicros.get() / 1_000.0;
+    }
+
+    /**
+     * Borne haute du seau contenant le percentile demandé (0-100), en millisecondes.
+     */
+    public double percentileMillis(double percentile) {
+        long total = nombre.get();
+        if (total == 0) return 0;
+        long rang = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long cumul = 0;
+        for (int i = 0; i < seaux.length(); i++) {
+            cumul += seaux.get(i);
+            if (cumul >= rang) {
+                return Math.min(borneHaute(i), maxMicros.get()) / 1_000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Forme texte compacte pour la persistance : "maxMicros;index:nombre,index:nombre...".
+     */
+    public String serialiser() {
+        StringBuilder sb = new StringBuilder().append(maxMicros.get()).append(';');
+        for (int i = 0; i < seaux.length(); i++) {
+            long n = seaux.get(i);
+            if (n > 0) {
+                if (sb.charAt(sb.length() - 1) != ';') sb.append(',');
+                sb.append(i).append(':').append(n);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Ajoute les échantillons d'un histogramme sérialisé par {@link #serialiser()}.
+     */
+    public void fusionner(String serialise) {
+        int separateur = serialise.indexOf(';');
+        maxMicros.accumulateAndGet(Long.parseLong(serialise.substring(0, separateur)), Math::max);
+        String seauxTexte = serialise.substring(separateur + 1);
+        if (seauxTexte.isEmpty()) return;
+        for (String seau : seauxTexte.split(",")) {
+            int deuxPoints = seau.indexOf(':');
+            long n = Long.parseLong(seau.substring(deuxPoints + 1));
+            seaux.addAndGet(Integer.parseInt(seau.substring(0, deuxPoints)), n);
+            nombre.addAndGet(n);
+        }
+    }
+
+    public void fusionner(HistogrammeDurees autre) {
+        fusionner(autre.serialiser());
+    }
+
+    /**
+     * Divise tous les compteurs par deux : les anciens échantillons pèsent moins que les récents.
+     * À n'appeler que sans enregistrement concurrent.
+     */
+    public void vieillir() {
+        long total = 0;
+        for (int i = 0; i < seaux.length(); i++) {
+            long n = seaux.get(i) / 2;
+            seaux.set(i, n);
+            total += n;
+        }
+        nombre.set(total);
+    }
+
+    // 0..15 : valeur exacte ; au-delà, 16 sous-seaux par puissance de deux
+    private static int index(long micros) {
+        if (micros < SOUS_SEAUX) return (int) micros;
+        int decalage = 63 - Long.numberOfLeadingZeros(micros) - 4;
+        int sousSeau = (int) (micros >>> decalage) - SOUS_SEAUX;
+        return Math.min((decalage + 1) * SOUS_SEAUX + sousSeau, GROUPES * SOUS_SEAUX - 1);
+    }
+
+    private static long borneHaute(int index) {
+        if (index < SOUS_SEAUX) return index;
+        int decalage = index / SOUS_SEAUX - 1;
+        long tete = SOUS_SEAUX + index % SOUS_SEAUX;
+        return ((tete + 1) << decalage) - 1;
+    }
+}
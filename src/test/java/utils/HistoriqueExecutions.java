@@ -0,0 +1,332 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Journal binaire des étapes exécutées, conservé entre les exécutions (historique.dossier).
+ * <p>
+ * Chaque JVM ajoute ses étapes à ses propres segments mappés en mémoire (*.actif pendant l'écriture,
+ * *.seg une fois fermés) : les forks surefire n'écrivent jamais dans le même fichier. La compaction
+ * fusionne les segments fermés en un seul, trié par date, en retirant les étapes plus anciennes que
+ * historique.retention.jours.
+ * <p>
+ * Enregistrement : [taille int][date epoch ms][durée ns][8 chaînes : longueur + 1 en varint (0 = null) puis UTF-8].
+ * La taille est écrite en dernier : un lecteur ne voit jamais d'enregistrement partiel.
+ */
+public class HistoriqueExecutions {
+    private static final int MAGIC = 0x48495354; // "HIST"
+    private static final int VERSION = 1;
+    private static final int ENTETE = 8;
+    private static final int TAILLE_CHAINE_MAX = 8 * 1024;
+    private static final String EXT_ACTIF = ".actif";
+    private static final String EXT_FERME = ".seg";
+    private static final DateTimeFormatter HORODATAGE = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final Path dossier;
+    private final int tailleSegment;
+    private final long pid = ProcessHandle.current().pid();
+    private int numeroSegment;
+
+    private FileChannel canalActif;
+    private MappedByteBuffer segmentActif;
+    private Path fichierActif;
+
+    public HistoriqueExecutions(Path dossier, int tailleSegment) {
+        this.dossier = dossier;
+        this.tailleSegment = tailleSegment;
+    }
+
+    /**
+     * Ajoute une étape au segment courant ; un nouveau segment est ouvert quand il est plein.
+     */
+    public synchronized void ajouter(InfosEtape etape) {
+        byte[] enregistrement = encoder(etape);
+        try {
+            if (segmentActif == null || segmentActif.remaining() < enregistrement.length + 4 + 4) {
+                ouvrirSegment(Math.max(tailleSegment, enregistrement.length + ENTETE + 8));
+            }
+            int position = segmentActif.position();
+            segmentActif.position(position + 4);
+            segmentActif.put(enregistrement);
+            segmentActif.putInt(position, enregistrement.length);
+        } catch (IOException e) {
+            System.err.println("Historique d'exécution non écrit: " + e.getMessage());
+        }
+    }
+
+    private void ouvrirSegment(int taille) throws IOException {
+        fermerSegment();
+        Files.createDirectories(dossier);
+        fichierActif = dossier.resolve("segment-" + LocalDateTime.now().format(HORODATAGE) + "-" + pid + "-"
+                + (++numeroSegment) + EXT_ACTIF);
+        canalActif = FileChannel.open(fichierActif, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmentActif = canalActif.map(FileChannel.MapMode.READ_WRITE, 0, taille);
+        segmentActif.putInt(MAGIC).putInt(VERSION);
+    }
+
+    private void fermerSegment() throws IOException {
+        if (segmentActif == null) return;
+        segmentActif.force();
+        // Le segment fermé ne garde que la partie écrite (pas de fin de fichier remplie de zéros)
+        canalActif.truncate(segmentActif.position());
+        canalActif.close();
+        Files.move(fichierActif, dossier.resolve(nomSansExtension(fichierActif) + EXT_FERME), StandardCopyOption.ATOMIC_MOVE);
+        segmentActif = null;
+        canalActif = null;
+        fichierActif = null;
+    }
+
+    /**
+     * Ferme le segment courant puis compacte l'historique si nécessaire ; à appeler en fin d'exécution.
+     */
+    public synchronized void fermer(int seuilCompaction, int retentionJours) {
+        try {
+            fermerSegment();
+            compacter(seuilCompaction, retentionJours);
+        } catch (IOException e) {
+            System.err.println("Fermeture de l'historique d'exécution: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parcourt les étapes correspondant aux filtres (null = pas de filtre), segments actifs compris.
+     * Les bornes de date sont incluses.
+     */
+    public void parcourir(String scenario, String etape, LocalDateTime depuis, LocalDateTime jusqua,
+                          Consumer<InfosEtape> consommateur) {
+        long min = depuis != null ? depuis.atZone(ZONE).toInstant().toEpochMilli() : Long.MIN_VALUE;
+        long max = jusqua != null ? jusqua.atZone(ZONE).toInstant().toEpochMilli() : Long.MAX_VALUE;
+        for (Path segment : segments(true)) {
+            lireSegment(segment, (date, buffer) -> {
+                if (date < min || date > max) return;
+                InfosEtape infos = decoder(date, buffer);
+                if ((scenario == null || scenario.equals(infos.getNomScenario()))
+                        && (etape == null || etape.equals(infos.getNomEtape()))) {
+                    consommateur.accept(infos);
+                }
+            });
+        }
+    }
+
+    public List<InfosEtape> rechercher(String scenario, String etape, LocalDateTime depuis, LocalDateTime jusqua) {
+        List<InfosEtape> resultat = new ArrayList<>();
+        parcourir(scenario, etape, depuis, jusqua, resultat::add);
+        resultat.sort(Comparator.comparing(InfosEtape::getDateExecution));
+        return resultat;
+    }
+
+    public List<InfosEtape> parScenario(String scenario) {
+        return rechercher(scenario, null, null, null);
+    }
+
+    public List<InfosEtape> parEtape(String etape) {
+        return rechercher(null, etape, null, null);
+    }
+
+    /**
+     * Nombre d'étapes et taux d'échec sur les {@code jours} derniers jours.
+     */
+    public String resume(int jours) {
+        long[] compteurs = new long[2];
+        long debut = System.nanoTime();
+        parcourir(null, null, LocalDateTime.now().minusDays(jours), null, infos -> {
+            compteurs[0]++;
+            if ("ECHEC".equalsIgnoreCase(infos.getStatut())) compteurs[1]++;
+        });
+        return String.format("Historique (%d j): %d étape(s), %.1f %% en échec, lu en %d ms", jours, compteurs[0],
+                compteurs[0] == 0 ? 0.0 : 100.0 * compteurs[1] / compteurs[0], (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    // Segments fermés (et actifs des processus terminés) fusionnés en un seul, sous verrou de dossier
+    private void compacter(int seuil, int retentionJours) throws IOException {
+        if (!Files.isDirectory(dossier)) return;
+        try (FileChannel verrou = FileChannel.open(dossier.resolve("compaction.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = verrou.tryLock()) {
+            if (ignored == null) return; // compaction en cours dans un autre fork
+            List<Path> fermes = segments(false);
+            if (fermes.size() < seuil) return;
+
+            long limite = Instant.now().minusSeconds(retentionJours * 86_400L).toEpochMilli();
+            List<byte[]> conserves = new ArrayList<>();
+            List<Long> dates = new ArrayList<>();
+            for (Path segment : fermes) {
+                lireSegment(segment, (date, buffer) -> {
+                    if (date < limite) return;
+                    byte[] enregistrement = new byte[buffer.remaining()];
+                    buffer.get(enregistrement);
+                    conserves.add(enregistrement);
+                    dates.add(date);
+                });
+            }
+            Integer[] ordre = new Integer[conserves.size()];
+            for (int i = 0; i < ordre.length; i++) ordre[i] = i;
+            Arrays.sort(ordre, Comparator.comparingLong(dates::get));
+
+            Path temporaire = dossier.resolve("compacte-" + LocalDateTime.now().format(HORODATAGE) + "-" + pid + ".tmp");
+            try (FileChannel sortie = FileChannel.open(temporaire, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer tampon = ByteBuffer.allocate(64 * 1024);
+                tampon.putInt(MAGIC).putInt(VERSION);
+                for (Integer i : ordre) {
+                    byte[] enregistrement = conserves.get(i);
+                    if (tampon.remaining() < enregistrement.length + 4) {
+                        tampon.flip();
+                        while (tampon.hasRemaining()) sortie.write(tampon);
+                        tampon = ByteBuffer.allocate(Math.max(64 * 1024, enregistrement.length + 4));
+                    }
+                    tampon.putInt(enregistrement.length).put(enregistrement);
+                }
+                tampon.flip();
+                while (tampon.hasRemaining()) sortie.write(tampon);
+                sortie.force(true);
+            }
+            Files.move(temporaire, dossier.resolve(nomSansExtension(temporaire) + EXT_FERME), StandardCopyOption.ATOMIC_MOVE);
+            for (Path segment : fermes) {
+                Files.deleteIfExists(segment);
+            }
+            System.out.println("Historique compacté: " + fermes.size() + " segment(s), " + conserves.size() + " étape(s)");
+        }
+    }
+
+    // Segments fermés ; avec actifs=true, aussi les segments en cours d'écriture
+    private List<Path> segments(boolean actifs) {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(dossier)) return segments;
+        try (DirectoryStream<Path> fichiers = Files.newDirectoryStream(dossier)) {
+            for (Path fichier : fichiers) {
+                String nom = fichier.getFileName().toString();
+                if (nom.endsWith(EXT_FERME)
+                        || (nom.endsWith(EXT_ACTIF) && (actifs || !processusVivant(nom)))) {
+                    segments.add(fichier);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Historique d'exécution illisible: " + e.getMessage());
+        }
+        segments.sort(Comparator.comparing(Path::toString));
+        return segments;
+    }
+
+    // segment-<horodatage>-<pid>-<n>.actif
+    private static boolean processusVivant(String nom) {
+        String[] parties = nom.split("-");
+        try {
+            return parties.length >= 4 && ProcessHandle.of(Long.parseLong(parties[2])).map(ProcessHandle::isAlive).orElse(false);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private interface LecteurEnregistrement {
+        // buffer positionné au début de l'enregistrement (date), limité à sa fin
+        void lire(long date, ByteBuffer buffer);
+    }
+
+    private static void lireSegment(Path segment, LecteurEnregistrement lecteur) {
+        try (FileChannel canal = FileChannel.open(segment, StandardOpenOption.READ)) {
+            if (canal.size() < ENTETE) return;
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (buffer.getInt(0) != MAGIC) return;
+            int position = ENTETE;
+            while (position + 4 <= buffer.limit()) {
+                int taille = buffer.getInt(position);
+                if (taille <= 0 || position + 4 + taille > buffer.limit()) break;
+                ByteBuffer enregistrement = buffer.duplicate();
+                enregistrement.position(position + 4).limit(position + 4 + taille);
+                lecteur.lire(enregistrement.getLong(position + 4), enregistrement.slice());
+                position += 4 + taille;
+            }
+        } catch (IOException e) {
+            System.err.println("Segment d'historique illisible (" + segment + "): " + e.getMessage());
+        }
+    }
+
+    static byte[] encoder(InfosEtape etape) {
+        String[] chaines = chaines(etape);
+        byte[][] octets = new byte[chaines.length][];
+        int taille = 16;
+        for (int i = 0; i < chaines.length; i++) {
+            if (chaines[i] != null) {
+                byte[] brut = chaines[i].getBytes(StandardCharsets.UTF_8);
+                octets[i] = brut.length > TAILLE_CHAINE_MAX ? Arrays.copyOf(brut, TAILLE_CHAINE_MAX) : brut;
+                taille += octets[i].length;
+            }
+            taille += 5;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(taille);
+        LocalDateTime date = Objects.requireNonNullElseGet(etape.getDateExecution(), LocalDateTime::now);
+        buffer.putLong(date.atZone(ZONE).toInstant().toEpochMilli());
+        buffer.putLong(etape.getDureeNanos());
+        for (byte[] chaine : octets) {
+            ecrireVarint(buffer, chaine == null ? 0 : chaine.length + 1);
+            if (chaine != null) buffer.put(chaine);
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static InfosEtape decoder(long date, ByteBuffer buffer) {
+        buffer.position(8);
+        long duree = buffer.getLong();
+        String[] chaines = new String[8];
+        for (int i = 0; i < chaines.length; i++) {
+            int longueur = lireVarint(buffer) - 1;
+            if (longueur >= 0) {
+                byte[] octets = new byte[longueur];
+                buffer.get(octets);
+                chaines[i] = new String(octets, StandardCharsets.UTF_8);
+            }
+        }
+        return new InfosEtape(chaines[0], chaines[1], chaines[2], chaines[3], chaines[4], chaines[5], chaines[6],
+                chaines[7], LocalDateTime.ofInstant(Instant.ofEpochMilli(date), ZONE), duree);
+    }
+
+    private static String[] chaines(InfosEtape etape) {
+        return new String[]{etape.getNomScenario(), etape.getNomEtape(), etape.getStatut(), etape.getPlateforme(),
+                etape.getResultatAttendu(), etape.getResultatReel(), etape.getUrl(), etape.getMessageErreur()};
+    }
+
+    // Longueur + 1 (0 = null), 7 bits par octet
+    private static void ecrireVarint(ByteBuffer buffer, int valeur) {
+        while ((valeur & ~0x7F) != 0) {
+            buffer.put((byte) ((valeur & 0x7F) | 0x80));
+            valeur >>>= 7;
+        }
+        buffer.put((byte) valeur);
+    }
+
+    private static int lireVarint(ByteBuffer buffer) {
+        int valeur = 0;
+        for (int decalage = 0; ; decalage += 7) {
+            byte b = buffer.get();
+            valeur |= (b & 0x7F) << decalage;
+            if ((b & 0x80) == 0) return valeur;
+        }
+    }
+
+    private static String nomSansExtension(Path fichier) {
+        String nom = fichier.getFileName().toString();
+        return nom.substring(0, nom.lastIndexOf('.'));
+    }
+}
@@ -0,0 +1,121 @@
+package utils;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Index inversé des expressions de steps : jeton normalisé (minuscules, sans accents, racine courte)
+ * -> steps qui le contiennent. Une description n'est comparée qu'aux steps qui partagent au moins
+ * un jeton avec elle, classés par score BM25.
+ * L'index est construit avant usage ; sans ajout concurrent, les lectures peuvent être parallèles.
+ */
+public class IndexEtapes {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATEURS = Pattern.compile("[^a-z0-9]+");
+    // Paramètres Cucumber ({string}, {int}...) : retirés avant découpage
+    private static final Pattern PARAMETRES = Pattern.compile("\\{[^}]*}");
+    private static final Set<String> MOTS_VIDES = Set.of(
+            "a", "au", "aux", "avec", "ce", "ces", "d", "dans", "de", "des", "du", "en", "est", "et", "je", "j",
+            "l", "la", "le", "les", "mon", "ma", "mes", "ne", "pas", "par", "pour", "qu", "que", "qui", "sa",
+            "se", "son", "sur", "un", "une", "vous", "y");
+
+    private final List<String> etapes = new ArrayList<>();
+    private final List<Integer> longueurs = new ArrayList<>();
+    // jeton -> [identifiant du step, fréquence du jeton dans le step]
+    private final Map<String, List<int[]>> postings = new HashMap<>();
+    private long longueurTotale;
+
+    public void ajouter(String etape) {
+        int id = etapes.size();
+        List<String> jetons = jetons(etape);
+        etapes.add(etape);
+        longueurs.add(jetons.size());
+        longueurTotale += jetons.size();
+
+        Map<String, Integer> frequences = new HashMap<>();
+        for (String jeton : jetons) {
+            frequences.merge(jeton, 1, Integer::sum);
+        }
+        frequences.forEach((jeton, tf) -> postings.computeIfAbsent(jeton, k -> new ArrayList<>()).add(new int[]{id, tf}));
+    }
+
+    public int taille() {
+        return etapes.size();
+    }
+
+    /**
+     * Steps partageant au moins un jeton avec la description, du meilleur score au moins bon.
+     */
+    public List<String> classer(String description, int max) {
+        Map<Integer, Double> scores = scorer(description);
+        List<Map.Entry<Integer, Double>> classement = new ArrayList<>(scores.entrySet());
+        // À score égal, l'ordre de déclaration est conservé
+        classement.sort(Map.Entry.<Integer, Double>comparingByValue().reversed().thenComparing(Map.Entry::getKey));
+        List<String> resultat = new ArrayList<>();
+        for (int i = 0; i < Math.min(max, classement.size()); i++) {
+            resultat.add(etapes.get(classement.get(i).getKey()));
+        }
+        return resultat;
+    }
+
+    /**
+     * Steps partageant au moins un jeton avec la description, dans l'ordre de déclaration.
+     */
+    public List<String> pertinentes(String description) {
+        List<Integer> ids = new ArrayList<>(scorer(description).keySet());
+        Collections.sort(ids);
+        List<String> resultat = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            resultat.add(etapes.get(id));
+        }
+        return resultat;
+    }
+
+    // BM25 : seuls les postings des jetons de la description sont parcourus
+    private Map<Integer, Double> scorer(String description) {
+        Map<Integer, Double> scores = new HashMap<>();
+        if (etapes.isEmpty()) return scores;
+        double longueurMoyenne = Math.max(1.0, (double) longueurTotale / etapes.size());
+        for (String jeton : new LinkedHashSet<>(jetons(description))) {
+            List<int[]> liste = postings.get(jeton);
+            if (liste == null) continue;
+            double idf = Math.log(1 + (etapes.size() - liste.size() + 0.5) / (liste.size() + 0.5));
+            for (int[] posting : liste) {
+                double tf = posting[1];
+                double normalisation = K1 * (1 - B + B * longueurs.get(posting[0]) / longueurMoyenne);
+                scores.merge(posting[0], idf * tf * (K1 + 1) / (tf + normalisation), Double::sum);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Jetons normalisés : minuscules, accents retirés, mots vides ignorés, terminaisons courantes
+     * (pluriel, infinitif en -er, -e final) tronquées pour que "recherche" et "rechercher" se rejoignent.
+     */
+    static List<String> jetons(String texte) {
+        String normalise = ACCENTS.matcher(Normalizer.normalize(
+                PARAMETRES.matcher(texte).replaceAll(" "), Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        List<String> jetons = new ArrayList<>();
+        for (String mot : SEPARATEURS.split(normalise)) {
+            if (mot.isEmpty() || MOTS_VIDES.contains(mot)) continue;
+            jetons.add(racine(mot));
+        }
+        return jetons;
+    }
+
+    private static String racine(String mot) {
+        if (mot.length() > 3 && (mot.endsWith("s") || mot.endsWith("x"))) {
+            mot = mot.substring(0, mot.length() - 1);
+        }
+        if (mot.length() > 4 && (mot.endsWith("er") || mot.endsWith("ez"))) {
+            mot = mot.substring(0, mot.length() - 2);
+        } else if (mot.length() > 4 && mot.endsWith("e")) {
+            mot = mot.substring(0, mot.length() - 1);
+        }
+        return mot;
+    }
+}
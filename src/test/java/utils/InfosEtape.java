@@ -0,0 +1,78 @@
+package utils;
+
+import java.time.LocalDateTime;
+
+/**
+ * Instantané immuable d'une étape de test, tel qu'il est transmis au {@link TestManager}.
+ * Une fois créé, il peut être partagé sans risque entre les threads des scénarios parallèles.
+ */
+public final class InfosEtape {
+    private final String nomScenario;
+    private final String nomEtape;
+    private final String statut;
+    private final String plateforme;
+    private final String resultatAttendu;
+    private final String resultatReel;
+    private final String url;
+    private final String messageErreur;
+    private final LocalDateTime dateExecution;
+    private final long dureeNanos;
+
+    public InfosEtape(String nomScenario, String nomEtape, String statut, String plateforme,
+                      String resultatAttendu, String resultatReel, String url,
+                      String messageErreur, LocalDateTime dateExecution, long dureeNanos) {
+        this.nomScenario = nomScenario;
+        this.nomEtape = nomEtape;
+        this.statut = statut;
+        this.plateforme = plateforme;
+        this.resultatAttendu = resultatAttendu;
+        this.resultatReel = resultatReel;
+        this.url = url;
+        this.messageErreur = messageErreur;
+        this.dateExecution = dateExecution;
+        this.dureeNanos = dureeNanos;
+    }
+
+    public String getNomScenario() {
+        return nomScenario;
+    }
+
+    public String getNomEtape() {
+        return nomEtape;
+    }
+
+    public String getStatut() {
+        return statut;
+    }
+
+    public String getPlateforme() {
+        return plateforme;
+    }
+
+    public String getResultatAttendu() {
+        return resultatAttendu;
+    }
+
+    public String getResultatReel() {
+        return resultatReel;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getMessageErreur() {
+        return messageErreur;
+    }
+
+    public LocalDateTime getDateExecution() {
+        return dateExecution;
+    }
+
+    /**
+     * Durée de l'étape mesurée avec System.nanoTime (monotone), 0 si inconnue.
+     */
+    public long getDureeNanos() {
+        return dureeNanos;
+    }
+}
@@ -0,0 +1,133 @@
+package utils;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.json.Json;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Blocage des requêtes inutiles aux assertions (analytics, publicité, médias) via le protocole DevTools
+ * de Chrome, et comptage des requêtes bloquées / chargées sur l'ensemble d'un scénario (toutes ses pages).
+ * reseau.blocage.urls : motifs Network.setBlockedURLs séparés par des virgules ;
+ * reseau.blocage.medias=true : images, polices et médias interceptés (Fetch) et refusés.
+ */
+public class InterceptionReseau {
+    private static final Map<WebDriver, InterceptionReseau> ACTIVES = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final List<String> TYPES_MEDIAS = List.of("Image", "Font", "Media");
+
+    private final LongAdder requetesBloquees = new LongAdder();
+    private final LongAdder requetesChargees = new LongAdder();
+    private final LongAdder octetsTransferes = new LongAdder();
+    private final LongAdder pages = new LongAdder();
+
+    /**
+     * Active l'interception sur une nouvelle session Chrome, si des règles sont configurées.
+     */
+    public static void configurer(ChromeDriver driver) {
+        List<String> motifs = motifsBloques();
+        boolean bloquerMedias = ConfigReader.getBooleanProperty("reseau.blocage.medias", false);
+        if (motifs.isEmpty() && !bloquerMedias) return;
+
+        try {
+            DevTools devTools = driver.getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            InterceptionReseau interception = new InterceptionReseau();
+
+            devTools.addListener(new Event<>("Network.loadingFinished", input -> input.<Map<String, Object>>read(Json.MAP_TYPE)),
+                    evenement -> {
+                        interception.requetesChargees.increment();
+                        Object taille = evenement.get("encodedDataLength");
+                        if (taille instanceof Number) {
+                            interception.octetsTransferes.add(((Number) taille).longValue());
+                        }
+                    });
+            devTools.addListener(new Event<>("Network.loadingFailed", input -> input.<Map<String, Object>>read(Json.MAP_TYPE)),
+                    evenement -> {
+                        if (evenement.get("blockedReason") != null
+                                || String.valueOf(evenement.get("errorText")).contains("BLOCKED_BY_CLIENT")) {
+                            interception.requetesBloquees.increment();
+                        }
+                    });
+            devTools.send(new Command<>("Network.enable", Map.of()));
+
+            if (!motifs.isEmpty()) {
+                devTools.send(new Command<>("Network.setBlockedURLs", Map.of("urls", motifs)));
+            }
+            if (bloquerMedias) {
+                List<Map<String, Object>> patterns = new ArrayList<>();
+                for (String type : TYPES_MEDIAS) {
+                    patterns.add(Map.of("urlPattern", "*", "resourceType", type, "requestStage", "Request"));
+                }
+                devTools.addListener(new Event<>("Fetch.requestPaused", input -> input.<Map<String, Object>>read(Json.MAP_TYPE)),
+                        evenement -> devTools.send(new Command<>("Fetch.failRequest",
+                                Map.of("requestId", evenement.get("requestId"), "errorReason", "BlockedByClient"))));
+                devTools.send(new Command<>("Fetch.enable", Map.of("patterns", patterns)));
+            }
+            ACTIVES.put(driver, interception);
+        } catch (Exception e) {
+            System.err.println("Interception réseau indisponible: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Interception active sur ce driver, ou null.
+     */
+    public static InterceptionReseau pour(WebDriver driver) {
+        return driver == null ? null : ACTIVES.get(driver);
+    }
+
+    /**
+     * Début de scénario : les compteurs repartent de zéro.
+     */
+    public void reinitialiser() {
+        requetesBloquees.reset();
+        requetesChargees.reset();
+        octetsTransferes.reset();
+        pages.reset();
+    }
+
+    /**
+     * Navigation vers une nouvelle page ; ses requêtes s'ajoutent aux compteurs du scénario.
+     */
+    public void nouvellePage() {
+        pages.increment();
+    }
+
+    public long getRequetesBloquees() {
+        return requetesBloquees.sum();
+    }
+
+    public long getRequetesChargees() {
+        return requetesChargees.sum();
+    }
+
+    public long getOctetsTransferes() {
+        return octetsTransferes.sum();
+    }
+
+    public long getPages() {
+        return pages.sum();
+    }
+
+    // Une requête bloquée n'est jamais téléchargée : on ne peut compter que les requêtes évitées.
+    // À lire en fin de scénario : avec pageLoadStrategy=eager, une page rendue charge encore ses ressources.
+    public String resume() {
+        return String.format("Réseau (%d page(s)): %d requête(s) bloquée(s), %d chargée(s), %.1f Ko transférés",
+                getPages(), getRequetesBloquees(), getRequetesChargees(), getOctetsTransferes() / 1024.0);
+    }
+
+    private static List<String> motifsBloques() {
+        List<String> motifs = new ArrayList<>();
+        for (String motif : ConfigReader.getProperty("reseau.blocage.urls", "").split(",")) {
+            if (!motif.isBlank()) {
+                motifs.add(motif.trim());
+            }
+        }
+        return motifs;
+    }
+}
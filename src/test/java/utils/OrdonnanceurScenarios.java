@@ -0,0 +1,118 @@
+package utils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Ordre d'exécution des scénarios et répartition entre workers, d'après l'historique d'exécution.
+ * <ul>
+ * <li>ordonnancement.mode=duree (défaut) : les plus longs d'abord, pour qu'un long scénario lancé en
+ * dernier n'allonge pas l'exécution ;</li>
+ * <li>ordonnancement.mode=echecs : les scénarios en échec depuis moins de ordonnancement.echecs.jours
+ * d'abord (le plus récent en tête), puis les plus longs.</li>
+ * </ul>
+ * Un scénario sans historique reçoit la durée médiane des scénarios connus.
+ */
+public class OrdonnanceurScenarios {
+    public enum Mode { DUREE, ECHECS }
+
+    private static final String ETAPE_FINALE = "Fin du Test";
+
+    private final Map<String, Double> dureesMs;
+    private final Map<String, LocalDateTime> derniersEchecs;
+    private final Mode mode;
+    private final double dureeInconnueMs;
+
+    public OrdonnanceurScenarios(Map<String, Double> dureesMs, Map<String, LocalDateTime> derniersEchecs, Mode mode) {
+        this.dureesMs = dureesMs;
+        this.derniersEchecs = derniersEchecs;
+        this.mode = mode;
+        this.dureeInconnueMs = mediane(dureesMs.values());
+    }
+
+    /**
+     * Durées moyennes (somme des étapes / nombre d'exécutions) sur ordonnancement.fenetre.jours,
+     * échecs récents sur ordonnancement.echecs.jours.
+     */
+    public static OrdonnanceurScenarios depuisHistorique() {
+        Mode mode = Mode.valueOf(ConfigReader.getProperty("ordonnancement.mode", "duree").trim().toUpperCase(Locale.ROOT));
+        HistoriqueExecutions historique = TestManager.getInstance().getHistorique();
+        if (historique == null) {
+            return new OrdonnanceurScenarios(Collections.emptyMap(), Collections.emptyMap(), mode);
+        }
+
+        Map<String, Long> cumulNanos = new HashMap<>();
+        Map<String, Integer> executions = new HashMap<>();
+        Map<String, LocalDateTime> echecs = new HashMap<>();
+        LocalDateTime limiteEchecs = LocalDateTime.now().minusDays(ConfigReader.getIntProperty("ordonnancement.echecs.jours", 7));
+        historique.parcourir(null, null,
+                LocalDateTime.now().minusDays(ConfigReader.getIntProperty("ordonnancement.fenetre.jours", 30)), null, infos -> {
+                    String scenario = RelanceScenarios.nomDeBase(infos.getNomScenario());
+                    cumulNanos.merge(scenario, infos.getDureeNanos(), Long::sum);
+                    if (!ETAPE_FINALE.equals(infos.getNomEtape())) return;
+                    executions.merge(scenario, 1, Integer::sum);
+                    if ("ECHEC".equalsIgnoreCase(infos.getStatut()) && infos.getDateExecution().isAfter(limiteEchecs)) {
+                        echecs.merge(scenario, infos.getDateExecution(), (a, b) -> a.isAfter(b) ? a : b);
+                    }
+                });
+
+        Map<String, Double> durees = new HashMap<>();
+        executions.forEach((scenario, n) -> durees.put(scenario, cumulNanos.getOrDefault(scenario, 0L) / 1e6 / n));
+        return new OrdonnanceurScenarios(durees, echecs, mode);
+    }
+
+    public double dureeEstimeeMs(String scenario) {
+        return dureesMs.getOrDefault(RelanceScenarios.nomDeBase(scenario), dureeInconnueMs);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Ordre de priorité des scénarios (par nom) ; à égalité, l'ordre d'origine est conservé (tri stable).
+     */
+    public Comparator<String> ordre() {
+        Comparator<String> parDuree = Comparator.comparingDouble(this::dureeEstimeeMs).reversed();
+        if (mode == Mode.DUREE) return parDuree;
+        Comparator<String> parEchec = Comparator.comparing(
+                (String s) -> derniersEchecs.get(RelanceScenarios.nomDeBase(s)),
+                Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()));
+        return parEchec.thenComparing(parDuree);
+    }
+
+    /**
+     * Répartition "plus long d'abord" (LPT) : chaque élément, du plus long au plus court, va au groupe
+     * le moins chargé (le moins rempli, puis le premier, à égalité). Déterministe pour une même entrée.
+     */
+    public static <T> List<List<T>> repartir(List<T> elements, ToDoubleFunction<T> duree, int groupes) {
+        List<List<T>> resultat = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, groupes); i++) {
+            resultat.add(new ArrayList<>());
+        }
+        List<T> tries = new ArrayList<>(elements);
+        tries.sort(Comparator.comparingDouble(duree).reversed());
+        double[] charges = new double[resultat.size()];
+        for (T element : tries) {
+            int moinsCharge = 0;
+            for (int i = 1; i < charges.length; i++) {
+                // À charge égale (durées inconnues), le groupe le moins rempli
+                if (charges[i] < charges[moinsCharge] || (charges[i] == charges[moinsCharge]
+                        && resultat.get(i).size() < resultat.get(moinsCharge).size())) {
+                    moinsCharge = i;
+                }
+            }
+            resultat.get(moinsCharge).add(element);
+            charges[moinsCharge] += duree.applyAsDouble(element);
+        }
+        return resultat;
+    }
+
+    private static double mediane(Collection<Double> valeurs) {
+        if (valeurs.isEmpty()) return 0;
+        double[] triees = valeurs.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        int milieu = triees.length / 2;
+        return triees.length % 2 == 1 ? triees[milieu] : (triees[milieu - 1] + triees[milieu]) / 2;
+    }
+}
@@ -0,0 +1,145 @@
+package utils;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Artefacts d'échec (capture d'écran, source de la page, console du navigateur) écrits hors du thread
+ * de test. Le thread de test ne fait que les lectures qui exigent le driver ; le décodage, la compression
+ * et l'écriture sur disque sont confiés à une file bornée (artefacts.file) traitée par artefacts.workers
+ * threads. File pleine : la tâche est exécutée par l'appelant plutôt que perdue.
+ */
+public class PipelineArtefacts {
+    private static final Path DOSSIER = Paths.get(ConfigReader.getProperty("artefacts.dossier", "target/artefacts"));
+    private static final DateTimeFormatter HORODATAGE = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS");
+
+    private final ThreadPoolExecutor executeur;
+    private final LongAdder ecrits = new LongAdder();
+    private final LongAdder erreurs = new LongAdder();
+
+    private static class Holder {
+        private static final PipelineArtefacts INSTANCE = new PipelineArtefacts(
+                ConfigReader.getIntProperty("artefacts.workers", 2),
+                ConfigReader.getIntProperty("artefacts.file", 32));
+    }
+
+    public static PipelineArtefacts getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    PipelineArtefacts(int workers, int capacite) {
+        AtomicInteger numero = new AtomicInteger();
+        executeur = new ThreadPoolExecutor(workers, workers, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacite),
+                r -> {
+                    Thread thread = new Thread(r, "artefacts-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executeur.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Lit les artefacts du driver et planifie leur écriture.
+     *
+     * @return le dossier où les artefacts seront écrits, à référencer dans les rapports
+     */
+    public Path capturer(WebDriver driver, String nomScenario) {
+        Path dossier = DOSSIER.resolve(EnregistreurFixtures.nomFichier(nomScenario) + "_" + LocalDateTime.now().format(HORODATAGE));
+
+        // Lectures liées au driver : sur le thread de test, avant que le driver ne soit rendu
+        String captureBase64 = null;
+        String source = null;
+        List<String> console = new ArrayList<>();
+        try {
+            if (driver instanceof TakesScreenshot) {
+                captureBase64 = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+            }
+        } catch (Exception e) {
+            console.add("Capture d'écran impossible: " + e.getMessage());
+        }
+        try {
+            source = driver.getPageSource();
+        } catch (Exception e) {
+            console.add("Source de la page indisponible: " + e.getMessage());
+        }
+        try {
+            for (LogEntry entree : driver.manage().logs().get(LogType.BROWSER)) {
+                console.add(entree.toString());
+            }
+        } catch (Exception e) {
+            // Journaux navigateur non activés pour ce driver
+        }
+
+        String capture = captureBase64;
+        String page = source;
+        executeur.execute(() -> ecrire(dossier, capture, page, console));
+        return dossier;
+    }
+
+    private void ecrire(Path dossier, String captureBase64, String source, List<String> console) {
+        try {
+            Files.createDirectories(dossier);
+            if (captureBase64 != null) {
+                // PNG déjà compressé : écrit tel quel
+                Files.write(dossier.resolve("capture.png"), Base64.getMimeDecoder().decode(captureBase64));
+            }
+            if (source != null) {
+                ecrireCompresse(dossier.resolve("page.html.gz"), source);
+            }
+            if (!console.isEmpty()) {
+                ecrireCompresse(dossier.resolve("console.log.gz"), String.join(System.lineSeparator(), console));
+            }
+            ecrits.increment();
+        } catch (IOException e) {
+            erreurs.increment();
+            System.err.println("Écriture des artefacts impossible (" + dossier + "): " + e.getMessage());
+        }
+    }
+
+    private static void ecrireCompresse(Path fichier, String contenu) throws IOException {
+        try (OutputStream sortie = new GZIPOutputStream(Files.newOutputStream(fichier))) {
+            sortie.write(contenu.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Attend l'écriture des artefacts en file, au plus {@code timeoutSecondes} ; à appeler en fin d'exécution.
+     */
+    public void terminer(long timeoutSecondes) {
+        executeur.shutdown();
+        try {
+            if (!executeur.awaitTermination(timeoutSecondes, TimeUnit.SECONDS)) {
+                System.err.println("Artefacts non écrits: " + executeur.getQueue().size() + " en file");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String resume() {
+        return String.format("Artefacts d'échec: %d écrit(s), %d erreur(s)", ecrits.sum(), erreurs.sum());
+    }
+}
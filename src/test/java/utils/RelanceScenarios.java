@@ -0,0 +1,155 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * État partagé entre le runner (runner.RunnerAvecRelance) et les hooks pour les relances de scénarios
+ * en échec dans la même JVM, et score d'instabilité de chaque scénario d'après l'historique d'exécution.
+ * <p>
+ * Score = nombre de changements de statut (réussi / échoué) entre exécutions successives, divisé par le
+ * nombre d'exécutions - 1 : 0 pour un scénario stable (toujours vert ou toujours rouge), proche de 1
+ * pour un scénario qui alterne. Au-delà de quarantaine.seuil, le scénario passe dans la voie de
+ * quarantaine, dont les échecs ne bloquent pas le build.
+ */
+public class RelanceScenarios {
+    private static final String ETAPE_FINALE = "Fin du Test";
+    private static final Pattern SUFFIXE_RELANCE = Pattern.compile(" \\(relance \\d+\\)$");
+    private static final Path FICHIER_QUARANTAINE = Paths.get(
+            ConfigReader.getProperty("quarantaine.fichier", "target/quarantaine.txt"));
+
+    private static final RelanceScenarios INSTANCE = new RelanceScenarios();
+
+    private volatile boolean runnerActif;
+    private volatile int tentative;
+    private Runnable finDifferee;
+
+    public static RelanceScenarios getInstance() {
+        return INSTANCE;
+    }
+
+    public static boolean isRelanceActive() {
+        return ConfigReader.getBooleanProperty("relance.actif", true);
+    }
+
+    public static boolean isQuarantaineActive() {
+        return ConfigReader.getBooleanProperty("quarantaine.actif", true);
+    }
+
+    public static int getRelancesMax() {
+        return ConfigReader.getIntProperty("relance.max", 1);
+    }
+
+    /**
+     * Le runner prend la main : la fin d'exécution (@AfterAll) est différée jusqu'à {@link #terminer()},
+     * pour que les relances trouvent le pool de navigateurs encore chaud.
+     */
+    public synchronized void demarrer() {
+        runnerActif = true;
+        tentative = 0;
+        finDifferee = null;
+    }
+
+    /**
+     * @return true si la fin d'exécution est différée : l'appelant ne doit rien fermer maintenant
+     */
+    public synchronized boolean differer(Runnable fin) {
+        if (!runnerActif) return false;
+        if (finDifferee == null) {
+            finDifferee = fin;
+        }
+        return true;
+    }
+
+    public synchronized void terminer() {
+        runnerActif = false;
+        tentative = 0;
+        Runnable fin = finDifferee;
+        finDifferee = null;
+        if (fin != null) {
+            fin.run();
+        }
+    }
+
+    public void setTentative(int tentative) {
+        this.tentative = tentative;
+    }
+
+    public int getTentative() {
+        return tentative;
+    }
+
+    /**
+     * Nom du scénario pour les rapports : suffixé pendant une relance, pour que l'exécution relancée
+     * ne soit pas fusionnée avec la première.
+     */
+    public String nomExecution(String nomScenario) {
+        return tentative > 0 ? nomScenario + " (relance " + tentative + ")" : nomScenario;
+    }
+
+    public static String nomDeBase(String nomExecution) {
+        return nomExecution == null ? "" : SUFFIXE_RELANCE.matcher(nomExecution).replaceAll("");
+    }
+
+    /**
+     * Score d'instabilité par scénario, sur les quarantaine.fenetre.jours derniers jours d'historique.
+     * Seuls les scénarios avec au moins quarantaine.executions.min exécutions sont notés.
+     */
+    public Map<String, Double> scoresInstabilite() {
+        HistoriqueExecutions historique = TestManager.getInstance().getHistorique();
+        if (historique == null) return Collections.emptyMap();
+
+        Map<String, List<InfosEtape>> parScenario = new HashMap<>();
+        historique.parcourir(null, ETAPE_FINALE,
+                LocalDateTime.now().minusDays(ConfigReader.getIntProperty("quarantaine.fenetre.jours", 30)), null,
+                infos -> parScenario.computeIfAbsent(nomDeBase(infos.getNomScenario()), k -> new ArrayList<>()).add(infos));
+
+        int minimum = ConfigReader.getIntProperty("quarantaine.executions.min", 5);
+        Map<String, Double> scores = new TreeMap<>();
+        parScenario.forEach((scenario, executions) -> {
+            if (executions.size() < minimum) return;
+            executions.sort(Comparator.comparing(InfosEtape::getDateExecution));
+            int changements = 0;
+            for (int i = 1; i < executions.size(); i++) {
+                if (echec(executions.get(i)) != echec(executions.get(i - 1))) changements++;
+            }
+            scores.put(scenario, (double) changements / (executions.size() - 1));
+        });
+        return scores;
+    }
+
+    /**
+     * Scénarios à exécuter dans la voie de quarantaine ; la liste est aussi écrite dans quarantaine.fichier.
+     */
+    public Set<String> scenariosEnQuarantaine() {
+        if (!isQuarantaineActive()) return Collections.emptySet();
+        double seuil = Double.parseDouble(ConfigReader.getProperty("quarantaine.seuil", "0.3"));
+        Set<String> quarantaine = new TreeSet<>();
+        StringBuilder contenu = new StringBuilder();
+        scoresInstabilite().forEach((scenario, score) -> {
+            if (score >= seuil) {
+                quarantaine.add(scenario);
+                contenu.append(String.format(Locale.ROOT, "%.2f\t%s%n", score, scenario));
+            }
+        });
+        try {
+            if (FICHIER_QUARANTAINE.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(FICHIER_QUARANTAINE.toAbsolutePath().getParent());
+            }
+            Files.writeString(FICHIER_QUARANTAINE, contenu.toString(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Liste de quarantaine non écrite: " + e.getMessage());
+        }
+        return quarantaine;
+    }
+
+    private static boolean echec(InfosEtape infos) {
+        return "ECHEC".equalsIgnoreCase(infos.getStatut());
+    }
+}
@@ -0,0 +1,83 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Découpage des scénarios en shards équilibrés (-Dshard.index=0..n-1, -Dshard.total=n), un par agent.
+ * <p>
+ * Le découpage est déterministe : il ne dépend que de la liste des scénarios et du fichier de durées
+ * shard.durees (une ligne "scénario&lt;TAB&gt;ms", produit par {@link FusionShards}), jamais de l'historique
+ * local de l'agent. Tous les agents calculent donc la même répartition. Sans fichier, les scénarios
+ * sont répartis à poids égal, dans l'ordre de leur nom.
+ */
+public final class RepartitionShards {
+    public static final String FICHIER_DUREES = "durees-scenarios.tsv";
+
+    private RepartitionShards() {
+    }
+
+    public static int getIndex() {
+        return ConfigReader.getIntProperty("shard.index", 0);
+    }
+
+    public static int getTotal() {
+        return ConfigReader.getIntProperty("shard.total", 1);
+    }
+
+    public static boolean isActif() {
+        return getTotal() > 1;
+    }
+
+    public static Path getFichierDurees() {
+        return Paths.get(ConfigReader.getProperty("shard.durees", "target/" + FICHIER_DUREES));
+    }
+
+    /**
+     * Éléments du shard {@code index} sur {@code total}.
+     *
+     * @param nom nom du scénario, clé du fichier de durées et critère de départage
+     */
+    public static <T> List<T> shard(List<T> elements, Function<T, String> nom, Map<String, Double> dureesMs,
+                                    int index, int total) {
+        if (index < 0 || index >= total) {
+            throw new IllegalArgumentException("shard.index hors limites: " + index + " (shard.total=" + total + ")");
+        }
+        return repartir(elements, nom, dureesMs, total).get(index);
+    }
+
+    /**
+     * Tous les shards : éléments triés par nom (tri stable) puis répartis "plus long d'abord".
+     */
+    public static <T> List<List<T>> repartir(List<T> elements, Function<T, String> nom, Map<String, Double> dureesMs,
+                                             int total) {
+        List<T> tries = new ArrayList<>(elements);
+        tries.sort(Comparator.comparing(nom));
+        OrdonnanceurScenarios durees = new OrdonnanceurScenarios(dureesMs, Collections.emptyMap(),
+                OrdonnanceurScenarios.Mode.DUREE);
+        return OrdonnanceurScenarios.repartir(tries, e -> durees.dureeEstimeeMs(nom.apply(e)), total);
+    }
+
+    public static Map<String, Double> chargerDurees(Path fichier) {
+        Map<String, Double> durees = new HashMap<>();
+        if (!Files.exists(fichier)) return durees;
+        try (BufferedReader reader = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            String ligne;
+            while ((ligne = reader.readLine()) != null) {
+                int tab = ligne.lastIndexOf('\t');
+                if (tab <= 0) continue;
+                durees.put(TransitionsEtapes.decoder(ligne.substring(0, tab)), Double.parseDouble(ligne.substring(tab + 1)));
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Fichier de durées illisible (" + fichier + "), répartition à poids égal: " + e.getMessage());
+            durees.clear();
+        }
+        return durees;
+    }
+}
@@ -0,0 +1,87 @@
+package utils;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class RepartitionShardsTest {
+    private static final List<String> SCENARIOS = List.of("Accueil", "Recherche", "Podcast", "Direct", "Lecture",
+            "Favoris", "Connexion");
+
+    @Test
+    public void memeDecoupageQuelQueSoitLOrdreDEntree() {
+        Map<String, Double> durees = Map.of("Accueil", 500.0, "Recherche", 1200.0, "Podcast", 300.0);
+        List<String> inverse = new ArrayList<>(SCENARIOS);
+        Collections.reverse(inverse);
+        List<String> melange = new ArrayList<>(SCENARIOS);
+        Collections.shuffle(melange, new Random(42));
+
+        for (int index = 0; index < 3; index++) {
+            List<String> attendu = RepartitionShards.shard(SCENARIOS, Function.identity(), durees, index, 3);
+            assertEquals(attendu, RepartitionShards.shard(inverse, Function.identity(), durees, index, 3));
+            assertEquals(attendu, RepartitionShards.shard(melange, Function.identity(), durees, index, 3));
+        }
+    }
+
+    @Test
+    public void shardsDisjointsEtComplets() {
+        Set<String> vus = new HashSet<>();
+        int total = 0;
+        for (int index = 0; index < 3; index++) {
+            List<String> shard = RepartitionShards.shard(SCENARIOS, Function.identity(), Collections.emptyMap(), index, 3);
+            for (String scenario : shard) {
+                assertTrue("Scénario dans deux shards: " + scenario, vus.add(scenario));
+            }
+            total += shard.size();
+        }
+        assertEquals(SCENARIOS.size(), total);
+        assertEquals(new HashSet<>(SCENARIOS), vus);
+    }
+
+    @Test
+    public void plusLongDAbordEquilibreLesDurees() {
+        Map<String, Double> durees = new HashMap<>();
+        durees.put("Accueil", 700.0);
+        durees.put("Recherche", 600.0);
+        durees.put("Podcast", 500.0);
+        durees.put("Direct", 400.0);
+        durees.put("Lecture", 300.0);
+        durees.put("Favoris", 200.0);
+        durees.put("Connexion", 100.0);
+
+        List<List<String>> shards = RepartitionShards.repartir(SCENARIOS, Function.identity(), durees, 2);
+        // Chaque scénario, du plus long au plus court, va au shard le moins chargé : 1400 ms de chaque côté
+        assertEquals(List.of("Accueil", "Direct", "Lecture"), shards.get(0));
+        assertEquals(List.of("Recherche", "Podcast", "Favoris", "Connexion"), shards.get(1));
+        assertEquals(1400.0, charge(shards.get(0), durees), 0.0);
+        assertEquals(1400.0, charge(shards.get(1), durees), 0.0);
+    }
+
+    @Test
+    public void sansDureesRepartitionAPoidsEgal() {
+        List<List<String>> shards = RepartitionShards.repartir(SCENARIOS, Function.identity(), Collections.emptyMap(), 3);
+        assertEquals(3, shards.size());
+        for (List<String> shard : shards) {
+            assertTrue("Shard déséquilibré: " + shards, shard.size() == 2 || shard.size() == 3);
+        }
+        // Ordre des noms, distribués tour à tour
+        assertEquals(List.of("Accueil", "Favoris", "Recherche"), shards.get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void indexNegatifRefuse() {
+        RepartitionShards.shard(SCENARIOS, Function.identity(), Collections.emptyMap(), -1, 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void indexAuDelaDuTotalRefuse() {
+        RepartitionShards.shard(SCENARIOS, Function.identity(), Collections.emptyMap(), 3, 3);
+    }
+
+    private static double charge(List<String> shard, Map<String, Double> durees) {
+        return shard.stream().mapToDouble(durees::get).sum();
+    }
+}
@@ -0,0 +1,129 @@
+package utils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contexte propre à un scénario. Picocontainer en crée une instance par scénario et l'injecte
+ * dans les classes de glue (Hooks, steps) : l'état de l'étape en cours n'est donc jamais partagé
+ * entre deux scénarios exécutés en parallèle.
+ */
+public class ScenarioContext {
+    // Scénario
+    private String nomScenario;
+    private String plateforme = System.getProperty("platformName", "Web");
+    private long debutScenarioNanos;
+
+    // Etape en cours
+    private String nomEtape;
+    private String statut;
+    private String resultatAttendu;
+    private String resultatReel;
+    private String url;
+    private String messageErreur;
+    private long debutEtapeNanos;
+
+    private List<String> testSuggestions = new ArrayList<>();
+
+    /**
+     * Démarre une nouvelle étape : les informations de l'étape précédente sont effacées.
+     */
+    public void debutEtape(String nomEtape) {
+        this.debutEtapeNanos = System.nanoTime();
+        this.nomEtape = nomEtape;
+        this.statut = null;
+        this.resultatAttendu = null;
+        this.resultatReel = null;
+        this.url = null;
+        this.messageErreur = null;
+    }
+
+    /**
+     * Envoie un instantané de l'étape en cours au {@link TestManager} de l'exécution.
+     */
+    public void enregistrerEtape() {
+        InfosEtape etape = new InfosEtape(nomScenario, nomEtape, statut, plateforme,
+                resultatAttendu, resultatReel, url, messageErreur, LocalDateTime.now(),
+                System.nanoTime() - debutEtapeNanos);
+        List<String> suggestions = TestManager.getInstance().ajouterInfosTest(etape);
+        if (!suggestions.isEmpty()) {
+            testSuggestions = suggestions;
+        }
+    }
+
+    // Getter ve Setter metodları
+    public String getNomScenario() {
+        return nomScenario;
+    }
+
+    public void setNomScenario(String nomScenario) {
+        this.nomScenario = nomScenario;
+        this.debutScenarioNanos = System.nanoTime();
+    }
+
+    /**
+     * Enregistre la durée du scénario, depuis setNomScenario, dans les statistiques de l'exécution.
+     */
+    public void terminerScenario() {
+        TestManager manager = TestManager.getInstance();
+        manager.enregistrerDureeScenario(nomScenario, System.nanoTime() - debutScenarioNanos);
+        manager.terminerScenario(nomScenario);
+    }
+
+    public String getPlateforme() {
+        return plateforme;
+    }
+
+    public void setPlateforme(String plateforme) {
+        this.plateforme = plateforme;
+    }
+
+    public String getNomEtape() {
+        return nomEtape;
+    }
+
+    public String getStatut() {
+        return statut;
+    }
+
+    public void setStatut(String statut) {
+        this.statut = statut;
+    }
+
+    public String getResultatAttendu() {
+        return resultatAttendu;
+    }
+
+    public void setResultatAttendu(String resultatAttendu) {
+        this.resultatAttendu = resultatAttendu;
+    }
+
+    public String getResultatReel() {
+        return resultatReel;
+    }
+
+    public void setResultatReel(String resultatReel) {
+        this.resultatReel = resultatReel;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getMessageErreur() {
+        return messageErreur;
+    }
+
+    public void setMessageErreur(String messageErreur) {
+        this.messageErreur = messageErreur;
+    }
+
+    public List<String> getTestSuggestions() {
+        return new ArrayList<>(testSuggestions);
+    }
+}
@@ -0,0 +1,184 @@
+package utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Fixtures HTTP enregistrées par scénario (fixtures.mode=enregistrement) puis rejouées par un serveur
+ * local embarqué (fixtures.mode=rejeu) : la suite tourne sans accès à radiofrance.fr.
+ * Les réponses sont servies depuis des fichiers mappés en mémoire.
+ * <p>
+ * Chemins locaux : l'hôte principal (celui de Hooks.URL_WEB) est servi à la racine, les autres hôtes sous
+ * /__hote/&lt;hôte&gt;/. Les URL absolues des corps texte sont réécrites à l'enregistrement.
+ */
+public class ServeurFixtures {
+    public static final String PREFIXE_HOTE = "/__hote/";
+    public static final Path DOSSIER = Paths.get(ConfigReader.getProperty("fixtures.dossier", "src/test/fixtures"));
+    private static final String MODE = ConfigReader.getProperty("fixtures.mode", "direct").toLowerCase();
+
+    private static ServeurFixtures instance;
+
+    private final HttpServer serveur;
+    private final String hotePrincipal;
+    // chemin local -> réponse enregistrée
+    private final Map<String, Reponse> reponses = new ConcurrentHashMap<>();
+    private final Map<Path, MappedByteBuffer> fichiersMappes = new ConcurrentHashMap<>();
+
+    private static class Reponse {
+        final Path fichier;
+        final String type;
+        final int statut;
+
+        Reponse(Path fichier, String type, int statut) {
+            this.fichier = fichier;
+            this.type = type;
+            this.statut = statut;
+        }
+    }
+
+    public static boolean isEnregistrement() {
+        return "enregistrement".equals(MODE);
+    }
+
+    public static boolean isRejeu() {
+        return "rejeu".equals(MODE);
+    }
+
+    /**
+     * Démarre le serveur de rejeu au premier appel (mode rejeu uniquement).
+     */
+    public static synchronized ServeurFixtures demarrer(String urlPrincipale) {
+        if (instance == null && isRejeu()) {
+            try {
+                instance = new ServeurFixtures(URI.create(urlPrincipale).getHost());
+            } catch (IOException e) {
+                throw new IllegalStateException("Serveur de fixtures impossible à démarrer", e);
+            }
+        }
+        return instance;
+    }
+
+    public static synchronized void arreter() {
+        if (instance != null) {
+            instance.serveur.stop(0);
+            instance = null;
+        }
+    }
+
+    /**
+     * URL live réécrite vers le serveur local en mode rejeu ; inchangée sinon.
+     */
+    public static String reecrireUrl(String urlLive) {
+        ServeurFixtures serveur = demarrer(urlLive);
+        if (serveur == null) return urlLive;
+        URI uri = URI.create(urlLive);
+        String base = "http://127.0.0.1:" + serveur.serveur.getAddress().getPort();
+        String chemin = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "" : uri.getRawPath();
+        String requete = uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "";
+        return uri.getHost().equals(serveur.hotePrincipal)
+                ? base + chemin + requete
+                : base + PREFIXE_HOTE + uri.getHost() + chemin + requete;
+    }
+
+    /**
+     * Chemin local d'une URL enregistrée, relatif au serveur de rejeu.
+     */
+    public static String cheminLocal(URI uri, String hotePrincipal) {
+        String chemin = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        String requete = uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "";
+        return uri.getHost().equals(hotePrincipal)
+                ? chemin + requete
+                : PREFIXE_HOTE + uri.getHost() + chemin + requete;
+    }
+
+    private ServeurFixtures(String hotePrincipal) throws IOException {
+        this.hotePrincipal = hotePrincipal;
+        chargerIndex();
+
+        serveur = HttpServer.create(new InetSocketAddress("127.0.0.1", ConfigReader.getIntProperty("fixtures.port", 0)), 0);
+        serveur.createContext("/", this::servir);
+        serveur.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "fixtures-http");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        serveur.start();
+        System.out.println("Serveur de fixtures: http://127.0.0.1:" + serveur.getAddress().getPort()
+                + " (" + reponses.size() + " réponse(s))");
+    }
+
+    // Tous les scénarios enregistrés sont servis ensemble : le premier enregistrement d'un chemin l'emporte
+    private void chargerIndex() throws IOException {
+        if (!Files.isDirectory(DOSSIER)) return;
+        try (DirectoryStream<Path> scenarios = Files.newDirectoryStream(DOSSIER, Files::isDirectory)) {
+            for (Path scenario : scenarios) {
+                Path index = scenario.resolve(EnregistreurFixtures.INDEX);
+                if (!Files.exists(index)) continue;
+                Properties proprietes = new Properties();
+                try (Reader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+                    proprietes.load(reader);
+                }
+                for (String cle : proprietes.stringPropertyNames()) {
+                    if (!cle.endsWith(".chemin")) continue;
+                    String id = cle.substring(0, cle.length() - ".chemin".length());
+                    reponses.putIfAbsent(proprietes.getProperty(cle), new Reponse(
+                            scenario.resolve(id + ".bin"),
+                            proprietes.getProperty(id + ".type", "application/octet-stream"),
+                            Integer.parseInt(proprietes.getProperty(id + ".statut", "200"))));
+                }
+            }
+        }
+    }
+
+    private void servir(HttpExchange echange) throws IOException {
+        try (echange) {
+            Reponse reponse = reponses.get(echange.getRequestURI().getRawPath()
+                    + (echange.getRequestURI().getRawQuery() != null ? "?" + echange.getRequestURI().getRawQuery() : ""));
+            if (reponse == null) {
+                reponse = reponses.get(echange.getRequestURI().getRawPath());
+            }
+            if (reponse == null) {
+                echange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            MappedByteBuffer contenu = fichiersMappes.computeIfAbsent(reponse.fichier, ServeurFixtures::mapper);
+            echange.getResponseHeaders().set("Content-Type", reponse.type);
+            echange.sendResponseHeaders(reponse.statut, contenu.capacity() == 0 ? -1 : contenu.capacity());
+            if (contenu.capacity() > 0) {
+                try (OutputStream sortie = echange.getResponseBody()) {
+                    WritableByteChannel canal = Channels.newChannel(sortie);
+                    canal.write(contenu.duplicate());
+                }
+            }
+        }
+    }
+
+    private static MappedByteBuffer mapper(Path fichier) {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            return canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        } catch (IOException e) {
+            throw new IllegalStateException("Fixture illisible: " + fichier, e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Serveur WebDriver / Appium simulé pour les tests unitaires, sur un port libre de 127.0.0.1. Chaque
+ * requête est proposée aux routes dans l'ordre ; sans réponse d'aucune, le corps est {"value":null}.
+ */
+public class ServeurWebDriverSimule implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface Route {
+        /**
+         * Corps JSON de la réponse, ou null si la requête ne concerne pas cette route.
+         */
+        String repondre(String methode, String chemin, String requete);
+    }
+
+    private final HttpServer serveur;
+    private final List<Route> routes;
+
+    public ServeurWebDriverSimule(Route... routes) throws IOException {
+        this.routes = List.of(routes);
+        serveur = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serveur.createContext("/", this::traiter);
+        serveur.start();
+    }
+
+    /**
+     * Réponse W3C : {"value": json}.
+     */
+    public static String valeur(String json) {
+        return "{\"value\":" + json + "}";
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + serveur.getAddress().getPort() + "/";
+    }
+
+    @Override
+    public void close() {
+        serveur.stop(0);
+    }
+
+    private void traiter(HttpExchange echange) throws IOException {
+        String methode = echange.getRequestMethod();
+        String chemin = echange.getRequestURI().getPath();
+        String requete = new String(echange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String corps = null;
+        for (int i = 0; i < routes.size() && corps == null; i++) {
+            corps = routes.get(i).repondre(methode, chemin, requete);
+        }
+        byte[] octets = (corps != null ? corps : valeur("null")).getBytes(StandardCharsets.UTF_8);
+        echange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        echange.sendResponseHeaders(200, octets.length);
+        echange.getResponseBody().write(octets);
+        echange.close();
+    }
+}
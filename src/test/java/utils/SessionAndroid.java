@@ -0,0 +1,155 @@
+package utils;
+
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.appmanagement.ApplicationState;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Session Appium Android réutilisée d'un scénario à l'autre : le démarrage de session UiAutomator2
+ * n'est payé qu'une fois, chaque scénario ne fait qu'un cycle terminateApp / activateApp (redémarrage
+ * à chaud de l'application).
+ * <p>
+ * appium.reset règle l'état de l'application entre deux scénarios, comme noReset côté Appium :
+ * aucun (défaut, données conservées) ou donnees (données effacées via mobile: clearApp).
+ * La session est recréée au-delà de appium.session.age.max.s secondes, après
+ * appium.session.scenarios.max scénarios (0 = sans limite) ou si elle ne répond plus.
+ * <p>
+ * Un seul appareil, donc un seul scénario à la fois : {@link #obtenir()} prête la session jusqu'à
+ * {@link #liberer()} ; les autres workers attendent (au plus appium.session.attente.ms).
+ */
+public class SessionAndroid {
+    private final Callable<AndroidDriver> fabrique;
+    private final String appPackage;
+    private final long ageMaxNanos;
+    private final int scenariosMax;
+    private final boolean effacerDonnees;
+    private final long attenteMaxMillis;
+
+    private AndroidDriver driver;
+    private boolean pretee;
+    private long creationNanos;
+    private int scenarios;
+    private boolean appActive;
+
+    // Statistiques
+    private final AtomicLong sessionsCreees = new AtomicLong();
+    private final AtomicLong redemarragesApp = new AtomicLong();
+    private final AtomicLong creationTotaleNanos = new AtomicLong();
+
+    public SessionAndroid(Callable<AndroidDriver> fabrique, String appPackage) {
+        this(fabrique, appPackage, ConfigReader.getIntProperty("appium.session.age.max.s", 1800) * 1_000_000_000L,
+                ConfigReader.getIntProperty("appium.session.scenarios.max", 0),
+                "donnees".equals(ConfigReader.getProperty("appium.reset", "aucun").trim().toLowerCase(Locale.ROOT)),
+                ConfigReader.getIntProperty("appium.session.attente.ms", 600000));
+    }
+
+    // Package-private : limites explicites (tests)
+    SessionAndroid(Callable<AndroidDriver> fabrique, String appPackage, long ageMaxNanos, int scenariosMax,
+                   boolean effacerDonnees, long attenteMaxMillis) {
+        this.fabrique = fabrique;
+        this.appPackage = appPackage;
+        this.ageMaxNanos = ageMaxNanos;
+        this.scenariosMax = scenariosMax;
+        this.effacerDonnees = effacerDonnees;
+        this.attenteMaxMillis = attenteMaxMillis;
+    }
+
+    /**
+     * Session prête pour un scénario, application au premier plan ; attend que le scénario précédent
+     * l'ait rendue par {@link #liberer()}.
+     */
+    public synchronized AndroidDriver obtenir() throws Exception {
+        long limite = System.nanoTime() + attenteMaxMillis * 1_000_000L;
+        while (pretee) {
+            long restant = limite - System.nanoTime();
+            if (restant <= 0) {
+                throw new IllegalStateException("Session Appium toujours utilisée après " + attenteMaxMillis + " ms");
+            }
+            wait(Math.max(1, restant / 1_000_000L));
+        }
+        if (driver != null && !reutilisable()) {
+            fermer();
+        }
+        if (driver == null) {
+            long debut = System.nanoTime();
+            driver = fabrique.call();
+            creationTotaleNanos.addAndGet(System.nanoTime() - debut);
+            sessionsCreees.incrementAndGet();
+            creationNanos = System.nanoTime();
+            scenarios = 0;
+            // Une nouvelle session lance l'application (appPackage / appActivity)
+            appActive = true;
+        } else if (!appActive) {
+            driver.activateApp(appPackage);
+            redemarragesApp.incrementAndGet();
+            appActive = true;
+        }
+        scenarios++;
+        pretee = true;
+        // Application redémarrée : les ids d'éléments du scénario précédent ne sont plus valides
+        CacheElements.pour(driver).nouvellePage();
+        return driver;
+    }
+
+    /**
+     * Fin de scénario : l'application est arrêtée (et ses données effacées avec appium.reset=donnees),
+     * la session reste ouverte pour le scénario suivant.
+     */
+    public synchronized void liberer() {
+        try {
+            if (driver == null) return;
+            driver.terminateApp(appPackage);
+            if (effacerDonnees) {
+                driver.executeScript("mobile: clearApp", Map.of("appId", appPackage));
+            }
+            appActive = false;
+        } catch (WebDriverException e) {
+            System.err.println("Session Appium inutilisable, elle sera recréée: " + e.getMessage());
+            fermer();
+        } finally {
+            pretee = false;
+            notifyAll();
+        }
+    }
+
+    private boolean reutilisable() {
+        if (System.nanoTime() - creationNanos > ageMaxNanos) return false;
+        if (scenariosMax > 0 && scenarios >= scenariosMax) return false;
+        try {
+            return driver.queryAppState(appPackage) != ApplicationState.NOT_INSTALLED;
+        } catch (WebDriverException e) {
+            return false;
+        }
+    }
+
+    public synchronized void fermer() {
+        if (driver == null) return;
+        try {
+            driver.quit();
+        } catch (WebDriverException e) {
+            System.err.println("Fermeture de la session Appium: " + e.getMessage());
+        } finally {
+            driver = null;
+            appActive = false;
+        }
+    }
+
+    public long getSessionsCreees() {
+        return sessionsCreees.get();
+    }
+
+    public long getRedemarragesApp() {
+        return redemarragesApp.get();
+    }
+
+    public String resume() {
+        long creees = sessionsCreees.get();
+        return String.format("Session Appium: %d session(s) créée(s) (%.1f s en moyenne), %d redémarrage(s) à chaud",
+                creees, creees == 0 ? 0.0 : creationTotaleNanos.get() / 1e9 / creees, redemarragesApp.get());
+    }
+}
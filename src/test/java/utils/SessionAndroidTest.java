@@ -0,0 +1,155 @@
+package utils;
+
+import io.appium.java_client.android.AndroidDriver;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openqa.selenium.remote.SessionId;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static utils.ServeurWebDriverSimule.valeur;
+
+/**
+ * SessionAndroid contre un serveur Appium simulé (appium.url pointe sur le stub) : sessions créées,
+ * fermées, et prêt exclusif de la session.
+ */
+public class SessionAndroidTest {
+    private static final long SANS_LIMITE = Long.MAX_VALUE;
+
+    private static ServeurWebDriverSimule stub;
+    private static final AtomicInteger numeroSession = new AtomicInteger();
+    private static final Set<String> sessionsCreees = ConcurrentHashMap.newKeySet();
+    private static final Set<String> sessionsFermees = ConcurrentHashMap.newKeySet();
+    private static String urlInitiale;
+
+    @BeforeClass
+    public static void demarrerStub() throws Exception {
+        stub = new ServeurWebDriverSimule(
+                (methode, chemin, requete) -> {
+                    if (!"POST".equals(methode) || !"/session".equals(chemin)) return null;
+                    String id = "s" + numeroSession.incrementAndGet();
+                    sessionsCreees.add(id);
+                    return valeur("{\"sessionId\":\"" + id + "\",\"capabilities\":"
+                            + "{\"platformName\":\"Android\",\"automationName\":\"UiAutomator2\"}}");
+                },
+                (methode, chemin, requete) -> {
+                    if (!"DELETE".equals(methode) || !chemin.matches("/session/[^/]+")) return null;
+                    sessionsFermees.add(chemin.substring("/session/".length()));
+                    return valeur("null");
+                },
+                // RUNNING_IN_FOREGROUND
+                (methode, chemin, requete) -> requete.contains("queryAppState") ? valeur("4") : null,
+                (methode, chemin, requete) -> valeur("true"));
+        urlInitiale = System.getProperty("appium.url");
+        System.setProperty("appium.url", stub.getUrl());
+    }
+
+    @AfterClass
+    public static void arreterStub() {
+        if (urlInitiale == null) {
+            System.clearProperty("appium.url");
+        } else {
+            System.setProperty("appium.url", urlInitiale);
+        }
+        stub.close();
+    }
+
+    @Test
+    public void uneSeuleSessionPourPlusieursScenarios() throws Exception {
+        SessionAndroid session = nouvelleSession(SANS_LIMITE, 0, 1000);
+        Set<SessionId> utilisees = cycles(session, 5);
+        session.fermer();
+
+        assertEquals(1, utilisees.size());
+        assertEquals(1, session.getSessionsCreees());
+        assertEquals(4, session.getRedemarragesApp());
+        assertCreeesPuisFermees(utilisees);
+    }
+
+    @Test
+    public void nouvelleSessionAuDelaDuNombreDeScenarios() throws Exception {
+        SessionAndroid session = nouvelleSession(SANS_LIMITE, 2, 1000);
+        Set<SessionId> utilisees = cycles(session, 5);
+        session.fermer();
+
+        // 2 + 2 + 1 scénarios
+        assertEquals(3, utilisees.size());
+        assertEquals(3, session.getSessionsCreees());
+        assertCreeesPuisFermees(utilisees);
+    }
+
+    @Test
+    public void nouvelleSessionAuDelaDeLAge() throws Exception {
+        SessionAndroid session = nouvelleSession(0, 0, 1000);
+        Set<SessionId> utilisees = cycles(session, 3);
+        session.fermer();
+
+        assertEquals(3, utilisees.size());
+        assertEquals(3, session.getSessionsCreees());
+        assertCreeesPuisFermees(utilisees);
+    }
+
+    @Test
+    public void laSessionEstPreteeJusquALiberer() throws Exception {
+        SessionAndroid session = nouvelleSession(SANS_LIMITE, 0, 5000);
+        AndroidDriver premier = session.obtenir();
+        ExecutorService autreWorker = Executors.newSingleThreadExecutor();
+        try {
+            Future<AndroidDriver> second = autreWorker.submit(session::obtenir);
+            try {
+                second.get(300, TimeUnit.MILLISECONDS);
+                fail("La session a été prêtée à deux scénarios à la fois");
+            } catch (TimeoutException attendu) {
+                // Toujours en attente de liberer()
+            }
+            session.liberer();
+            assertSame(premier, second.get(5, TimeUnit.SECONDS));
+            session.liberer();
+        } finally {
+            autreWorker.shutdownNow();
+            session.fermer();
+        }
+    }
+
+    @Test
+    public void attenteLimiteeQuandLaSessionNEstPasRendue() throws Exception {
+        SessionAndroid session = nouvelleSession(SANS_LIMITE, 0, 100);
+        session.obtenir();
+        ExecutorService autreWorker = Executors.newSingleThreadExecutor();
+        try {
+            Future<AndroidDriver> second = autreWorker.submit(session::obtenir);
+            ExecutionException erreur = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+            assertTrue(erreur.getCause() instanceof IllegalStateException);
+        } finally {
+            autreWorker.shutdownNow();
+            session.liberer();
+            session.fermer();
+        }
+    }
+
+    private static SessionAndroid nouvelleSession(long ageMaxNanos, int scenariosMax, long attenteMaxMillis) {
+        return new SessionAndroid(() -> Driver.getAndroidDriver(Driver.getAndroidApps()), Driver.APP_PACKAGE_ANDROID,
+                ageMaxNanos, scenariosMax, false, attenteMaxMillis);
+    }
+
+    // Un cycle obtenir / liberer par scénario ; sessions effectivement utilisées
+    private static Set<SessionId> cycles(SessionAndroid session, int scenarios) throws Exception {
+        Set<SessionId> utilisees = new LinkedHashSet<>();
+        for (int i = 0; i < scenarios; i++) {
+            utilisees.add(session.obtenir().getSessionId());
+            session.liberer();
+        }
+        return utilisees;
+    }
+
+    private static void assertCreeesPuisFermees(Set<SessionId> sessions) {
+        for (SessionId id : sessions) {
+            assertTrue("Session inconnue du serveur: " + id, sessionsCreees.contains(id.toString()));
+            assertTrue("Session non fermée: " + id, sessionsFermees.contains(id.toString()));
+        }
+    }
+}
@@ -6,25 +6,83 @@ import io.cucumber.java.en.When;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.And;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.reflections.Reflections;
 import org.reflections.scanners.MethodAnnotationsScanner;
 
 public class TestGenerator {
     private Map<String, List<String>> availableSteps;
+    // Index inversé par type de step (Given, When...), tenu à jour avec availableSteps
+    private final Map<String, IndexEtapes> stepIndexes = new HashMap<>();
     private static final String STEPDEFS_PACKAGE = "stepdefinitions";
+    private static final String FEATURES_DIR = "src/test/resources/features";
+    // Écrit par IndexEtapesProcessor à la compilation des tests
+    static final String INDEX_ETAPES = "META-INF/etapes/index-etapes.tsv";
 
     public TestGenerator() {
         this.availableSteps = new HashMap<>();
-        scanAvailableSteps();
+        if (!loadStepIndex()) {
+            scanAvailableSteps();
+        }
+        availableSteps.forEach((type, steps) -> steps.forEach(step -> indexStep(type, step)));
+    }
+
+    private void indexStep(String type, String step) {
+        stepIndexes.computeIfAbsent(type, k -> new IndexEtapes()).ajouter(step);
+    }
+
+    // Index généré à la compilation : lecture linéaire, sans scan du classpath
+    private boolean loadStepIndex() {
+        InputStream index = TestGenerator.class.getClassLoader().getResourceAsStream(INDEX_ETAPES);
+        if (index == null) return false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(index, StandardCharsets.UTF_8))) {
+            String ligne;
+            while ((ligne = reader.readLine()) != null) {
+                String[] colonnes = ligne.split("\t", 3);
+                if (colonnes.length < 3 || !colonnes[2].startsWith(STEPDEFS_PACKAGE + ".")) continue;
+                availableSteps.computeIfAbsent(colonnes[0], k -> new ArrayList<>())
+                        .add(desechapper(colonnes[1]));
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Index des steps illisible, scan du classpath: " + e.getMessage());
+            availableSteps.clear();
+            return false;
+        }
     }
 
-    // Varolan step tanımlarını tara
+    private static String desechapper(String texte) {
+        if (texte.indexOf('\\') < 0) return texte;
+        StringBuilder resultat = new StringBuilder(texte.length());
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            if (c == '\\' && i + 1 < texte.length()) {
+                char suivant = texte.charAt(++i);
+                resultat.append(suivant == 't' ? '\t' : suivant == 'n' ? '\n' : suivant);
+            } else {
+                resultat.append(c);
+            }
+        }
+        return resultat.toString();
+    }
+
+    // Varolan step tanımlarını tara (index absent : compilation sans le processeur d'annotations)
     private void scanAvailableSteps() {
         try {
             Reflections reflections = new Reflections(STEPDEFS_PACKAGE, new MethodAnnotationsScanner());
@@ -68,34 +126,38 @@ public class TestGenerator {
 
     public void generateFeatureFile(String description) {
         try {
-            StringBuilder featureContent = new StringBuilder();
-            String featureName = generateFeatureName(description);
-            String scenarioName = generateScenarioName(description);
-
-            featureContent.append("# language: fr\n\n");
-            featureContent.append("Feature: ").append(featureName).append("\n\n");
-            featureContent.append("  Scenario: ").append(scenarioName).append("\n");
+            saveFeatureFile(description, buildFeatureContent(description));
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la génération du feature file: " + e.getMessage());
+        }
+    }
 
-            // Mevcut step'lerden uygun olanları seç
-            if (availableSteps.containsKey("Given")) {
-                featureContent.append("    Given ").append(findMostRelevantStep("Given", description)).append("\n");
-            }
+    // Contenu Gherkin généré pour une description, sans écriture disque
+    String buildFeatureContent(String description) {
+        StringBuilder featureContent = new StringBuilder();
+        String featureName = generateFeatureName(description);
+        String scenarioName = generateScenarioName(description);
 
-            if (availableSteps.containsKey("When")) {
-                availableSteps.get("When").stream()
-                        .filter(step -> isStepRelevant(step, description))
-                        .forEach(step -> featureContent.append("    When ").append(step).append("\n"));
-            }
+        featureContent.append("# language: fr\n\n");
+        featureContent.append("Feature: ").append(featureName).append("\n\n");
+        featureContent.append("  Scenario: ").append(scenarioName).append("\n");
 
-            if (availableSteps.containsKey("Then")) {
-                featureContent.append("    Then ").append(findMostRelevantStep("Then", description)).append("\n");
-            }
+        // Mevcut step'lerden uygun olanları seç
+        if (availableSteps.containsKey("Given")) {
+            featureContent.append("    Given ").append(findMostRelevantStep("Given", description)).append("\n");
+        }
 
-            saveFeatureFile(description, featureContent.toString());
+        if (availableSteps.containsKey("When")) {
+            // Ordre de déclaration conservé : les actions s'enchaînent dans cet ordre
+            stepIndexes.get("When").pertinentes(description)
+                    .forEach(step -> featureContent.append("    When ").append(step).append("\n"));
+        }
 
-        } catch (Exception e) {
-            System.err.println("Erreur lors de la génération du feature file: " + e.getMessage());
+        if (availableSteps.containsKey("Then")) {
+            featureContent.append("    Then ").append(findMostRelevantStep("Then", description)).append("\n");
         }
+
+        return featureContent.toString();
     }
 
     private String generateFeatureName(String description) {
@@ -116,36 +178,100 @@ public class TestGenerator {
             return "# Step à implémenter";
         }
 
-        // En uygun step'i bul
-        return steps.stream()
-                .filter(step -> isStepRelevant(step, description))
-                .findFirst()
-                .orElse(steps.get(0)); // Uygun step bulunamazsa ilkini kullan
-    }
-
-    private boolean isStepRelevant(String step, String description) {
-        // Step'in açıklama ile ilgili olup olmadığını kontrol et
-        String[] keywords = description.toLowerCase().split("\\s+");
-        String stepLower = step.toLowerCase();
-
-        return Arrays.stream(keywords)
-                .anyMatch(keyword -> stepLower.contains(keyword));
+        // En uygun step'i bul : meilleur score BM25
+        List<String> best = stepIndexes.get(stepType).classer(description, 1);
+        return best.isEmpty() ? steps.get(0) : best.get(0); // Uygun step bulunamazsa ilkini kullan
     }
 
     private void saveFeatureFile(String description, String content) throws Exception {
-        Path featuresDir = Paths.get("src/test/resources/features");
+        Path featuresDir = Paths.get(FEATURES_DIR);
         Files.createDirectories(featuresDir);
 
-        String fileName = description.toLowerCase()
+        Path filePath = featuresDir.resolve(featureFileName(description));
+        Files.writeString(filePath, content);
+
+        System.out.println("Feature file créé: " + filePath);
+        System.out.println("\nContenu du fichier:\n" + content);
+    }
+
+    private static String featureFileName(String description) {
+        return description.toLowerCase()
                 .replaceAll("[^a-z0-9]", "_")
                 .replaceAll("_+", "_")
                 + ".feature";
+    }
 
-        Path filePath = featuresDir.resolve(fileName);
-        Files.writeString(filePath, content);
+    /**
+     * Génère les features d'un lot de descriptions : contenus calculés en parallèle (fork-join) sur les
+     * index partagés en lecture seule, contenus identiques écrits une seule fois, écriture confiée à une
+     * file bornée de {@code generation.ecrivains} threads.
+     *
+     * @return les fichiers écrits, dans l'ordre des descriptions
+     */
+    public List<Path> generateFeatureFiles(List<String> descriptions, Path featuresDir) throws Exception {
+        Files.createDirectories(featuresDir);
+        ForkJoinPool pool = new ForkJoinPool(ConfigReader.getIntProperty("generation.parallelisme",
+                Runtime.getRuntime().availableProcessors()));
+        List<String> contents;
+        try {
+            contents = pool.submit(() -> descriptions.parallelStream()
+                    .map(this::buildFeatureContent)
+                    .collect(Collectors.toList())).get();
+        } finally {
+            pool.shutdown();
+        }
 
-        System.out.println("Feature file créé: " + filePath);
-        System.out.println("\nContenu du fichier:\n" + content);
+        // Dédoublonnage séquentiel : le résultat ne dépend pas de l'ordonnancement du pool
+        Map<String, Path> filesByContent = new LinkedHashMap<>();
+        Set<String> fileNames = new HashSet<>();
+        for (int i = 0; i < descriptions.size(); i++) {
+            if (filesByContent.containsKey(contents.get(i))) continue;
+            String baseName = featureFileName(descriptions.get(i));
+            String fileName = baseName;
+            for (int n = 2; !fileNames.add(fileName); n++) {
+                fileName = baseName.replace(".feature", "_" + n + ".feature");
+            }
+            filesByContent.put(contents.get(i), featuresDir.resolve(fileName));
+        }
+
+        int writers = ConfigReader.getIntProperty("generation.ecrivains", 2);
+        ThreadPoolExecutor writer = new ThreadPoolExecutor(writers, writers, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(ConfigReader.getIntProperty("generation.file", 256)),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        List<Future<?>> writes = new ArrayList<>();
+        try {
+            filesByContent.forEach((content, file) ->
+                    writes.add(writer.submit(() -> {
+                        Files.writeString(file, content);
+                        return null;
+                    })));
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            writer.shutdown();
+        }
+        System.out.println(filesByContent.size() + " feature(s) écrit(s) dans " + featuresDir + " pour "
+                + descriptions.size() + " description(s)");
+        return new ArrayList<>(filesByContent.values());
+    }
+
+    /**
+     * Génération en lot : une description par ligne (lignes vides et commentaires # ignorés).
+     * Usage : TestGenerator &lt;fichier des descriptions&gt; [dossier de sortie]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: TestGenerator <fichier des descriptions> [dossier de sortie]");
+            System.exit(2);
+        }
+        List<String> descriptions = Files.readAllLines(Paths.get(args[0])).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        new TestGenerator().generateFeatureFiles(descriptions, Paths.get(args.length > 1 ? args[1] : FEATURES_DIR));
+        System.out.printf("Génération terminée en %.2fs%n", (System.nanoTime() - start) / 1e9);
     }
 
     // Mevcut step'leri göster
@@ -161,5 +287,6 @@ public class TestGenerator {
     public void addCustomStep(String type, String stepDefinition) {
         availableSteps.computeIfAbsent(type, k -> new ArrayList<>())
                 .add(stepDefinition);
+        indexStep(type, stepDefinition);
     }
 }
@@ -2,40 +2,87 @@
 package utils;
 
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
+/**
+ * Agrégateur des étapes de l'exécution. Une seule instance est partagée par tous les scénarios ;
+ * les collections sont concurrentes et sans verrou, les étapes reçues sont des
+ * {@link InfosEtape} immuables produits par chaque {@link ScenarioContext}.
+ */
 public class TestManager {
-    // Singleton instance
-    private static TestManager instance;
-
-    // Test bilgileri
-    private String nomScenario;
-    private String nomEtape;
-    private String statut;
-    private String plateforme;
-    private String resultatAttendu;
-    private String resultatReel;
-    private String url;
-    private String messageErreur;
-    private LocalDateTime dateExecution;
+    // Singleton instance (holder : créé au premier appel, après les constantes de configuration)
+    private static class Holder {
+        private static final TestManager INSTANCE = creerInstance();
+    }
 
     // Koleksiyonlar
-    private final List<TestManager> rapportsTests;
+    private final Queue<InfosEtape> rapportsTests;
     private final Map<String, String> analysisResults;
     private final Map<String, Integer> stepPatterns;
-    private final List<String> testSuggestions;
+    private volatile List<String> testSuggestions;
+
+    // Index et compteurs incrémentaux : l'enregistrement d'une étape ne parcourt plus rapportsTests
+    // Clés (étape, url) des scénarios en cours, retirées à la fin de chaque scénario
+    private final Map<String, Set<List<String>>> indexEtapes;
+    private final Map<String, Queue<InfosEtape>> exemplesReussis;
+    private final LongAdder totalEtapes = new LongAdder();
+    private final LongAdder etapesReussies = new LongAdder();
+    private final LongAdder etapesEchouees = new LongAdder();
+    private final AtomicReference<LocalDateTime> premiereDate = new AtomicReference<>();
+    private final AtomicReference<LocalDateTime> derniereDate = new AtomicReference<>();
+    private final AtomicReference<Map.Entry<String, Integer>> etapeLaPlusUtilisee = new AtomicReference<>();
+
+    // Durées (nanoTime) par nom d'étape et par scénario
+    private final Map<String, HistogrammeDurees> dureesParEtape;
+    private final Map<String, HistogrammeDurees> dureesParScenario;
+
+    // Transitions étape -> étape suivante, par scénario
+    private final TransitionsEtapes transitions;
+    // Journal des étapes entre exécutions ; absent pour les instances isolées (benchmarks)
+    private HistoriqueExecutions historique;
+    private final Map<String, String> derniereEtapeParScenario;
+
+    // Rapport en streaming (SXSSF) : seules les dernières lignes restent en mémoire
+    private final boolean rapportStreaming;
+    private final Object verrouStreaming = new Object();
+    private final AtomicBoolean rapportFinalise = new AtomicBoolean();
+    private SXSSFWorkbook workbookStreaming;
+    private Sheet feuilleStreaming;
+    private CellStyle successStyleStreaming;
+    private CellStyle failureStyleStreaming;
+    private int ligneStreaming;
 
     // Sabitler
     private static final String EXCEL_REPORTS_DIR = "target/rapports-tests";
-    private static final String PLATFORM = System.getProperty("platformName", "Web");
+    private static final String RAPPORT_NOM = ConfigReader.getProperty("rapport.nom", "RadioFrance");
+    private static final int FENETRE_LIGNES_STREAMING = ConfigReader.getIntProperty("rapport.streaming.fenetre", 100);
+    private static final boolean TRANSITIONS_PERSISTANTES = ConfigReader.getBooleanProperty("suggestions.persistance", false);
+    private static final Path TRANSITIONS_FICHIER = Paths.get(
+            ConfigReader.getProperty("suggestions.fichier", "target/historique/transitions-etapes.tsv"));
+    private static final boolean HISTORIQUE_ACTIF = ConfigReader.getBooleanProperty("historique.actif", true);
+    private static final String[] RESULT_COLUMNS = {
+            "Scénario", "Étape", "Statut", "Plateforme",
+            "Résultat Attendu", "Résultat Réel", "URL",
+            "Message d'Erreur", "Date d'Exécution", "Durée (ms)"
+    };
 
     // Yapay zeka analiz sabitleri
     private static final Map<String, String> ERROR_PATTERNS = new HashMap<>();
@@ -72,21 +119,45 @@ public class TestManager {
         ));
     }
 
-    private TestManager() {
-        rapportsTests = new ArrayList<>();
-        analysisResults = new HashMap<>();
-        stepPatterns = new HashMap<>();
-        testSuggestions = new ArrayList<>();
-        dateExecution = LocalDateTime.now();
+    // Instance de l'exécution : chargement de l'historique et écriture finale à l'arrêt de la JVM
+    private static TestManager creerInstance() {
+        // rapport.mode=complet : ancien comportement, un classeur complet par appel à genererRapport
+        boolean streaming = !"complet".equalsIgnoreCase(ConfigReader.getProperty("rapport.mode", "streaming"));
+        TestManager manager = new TestManager(streaming);
+        if (TRANSITIONS_PERSISTANTES) {
+            manager.transitions.charger(TRANSITIONS_FICHIER);
+            Runtime.getRuntime().addShutdownHook(new Thread(manager::sauvegarderTransitions));
+        }
+        if (streaming) {
+            Runtime.getRuntime().addShutdownHook(new Thread(manager::finaliserRapport));
+        }
+        if (HISTORIQUE_ACTIF) {
+            manager.historique = new HistoriqueExecutions(
+                    Paths.get(ConfigReader.getProperty("historique.dossier", "target/historique/executions")),
+                    ConfigReader.getIntProperty("historique.segment.taille", 8 * 1024 * 1024));
+            Runtime.getRuntime().addShutdownHook(new Thread(manager::fermerHistorique));
+        }
+        return manager;
+    }
+
+    // Package-private : instances isolées, sans hooks ni historique (benchmarks)
+    TestManager(boolean rapportStreaming) {
+        this.rapportStreaming = rapportStreaming;
+        rapportsTests = new ConcurrentLinkedQueue<>();
+        analysisResults = new ConcurrentHashMap<>();
+        stepPatterns = new ConcurrentHashMap<>();
+        testSuggestions = Collections.emptyList();
+        indexEtapes = new ConcurrentHashMap<>();
+        exemplesReussis = new ConcurrentHashMap<>();
+        dureesParEtape = new ConcurrentHashMap<>();
+        dureesParScenario = new ConcurrentHashMap<>();
+        transitions = new TransitionsEtapes();
+        derniereEtapeParScenario = new ConcurrentHashMap<>();
         createReportsDirectory();
-        this.plateforme = PLATFORM;
     }
 
     public static TestManager getInstance() {
-        if (instance == null) {
-            instance = new TestManager();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
 
     private void createReportsDirectory() {
@@ -96,180 +167,151 @@ public class TestManager {
         }
     }
 
-    // Getter ve Setter metodları
-    public String getNomScenario() {
-        return nomScenario;
-    }
-
-    public void setNomScenario(String nomScenario) {
-        this.nomScenario = nomScenario;
-    }
-
-    public String getNomEtape() {
-        return nomEtape;
-    }
-
-    public void setNomEtape(String nomEtape) {
-        this.nomEtape = nomEtape;
-        updateStepPattern(nomEtape);
-    }
+    // Test adımı ekleme ve analiz
+    // Doublon = même (scénario, étape, url) : une seule recherche dans l'index du scénario, en temps constant
+    public List<String> ajouterInfosTest(InfosEtape testInfo) {
+        if (testInfo == null) return Collections.emptyList();
 
-    public String getStatut() {
-        return statut;
-    }
+        Set<List<String>> etapesScenario = indexEtapes.computeIfAbsent(
+                Objects.toString(testInfo.getNomScenario(), ""), k -> ConcurrentHashMap.newKeySet());
+        if (!etapesScenario.add(cleEtape(testInfo))) return Collections.emptyList();
 
-    public void setStatut(String statut) {
-        this.statut = statut;
-        if ("ECHEC".equalsIgnoreCase(statut)) {
-            analyzeFailure();
+        // En streaming, la ligne part directement dans le classeur : rien n'est gardé en mémoire
+        if (!rapportStreaming) {
+            rapportsTests.add(testInfo);
+        }
+        if (historique != null) {
+            historique.ajouter(testInfo);
+        }
+        if (rapportStreaming) {
+            ajouterLigneStreaming(testInfo);
+        }
+        if (testInfo.getMessageErreur() != null) {
+            analyzeError(testInfo);
+        }
+        if ("ECHEC".equalsIgnoreCase(testInfo.getStatut())) {
+            analyzeFailure(testInfo);
+        }
+        updateAnalysis(testInfo);
+        updateTransitions(testInfo);
+        return suggestNextSteps(testInfo);
+    }
+
+    // L'étape précédente du même scénario -> cette étape
+    private void updateTransitions(InfosEtape testInfo) {
+        if (testInfo.getNomEtape() == null) return;
+        String precedente = derniereEtapeParScenario.put(
+                Objects.toString(testInfo.getNomScenario(), ""), testInfo.getNomEtape());
+        transitions.enregistrer(precedente, testInfo.getNomEtape(),
+                "REUSSI".equalsIgnoreCase(testInfo.getStatut()));
+    }
+
+    /**
+     * Historique des étapes des exécutions précédentes et de celle-ci ; null si historique.actif=false.
+     */
+    public HistoriqueExecutions getHistorique() {
+        return historique;
+    }
+
+    /**
+     * Ferme le segment d'historique de l'exécution et compacte les segments accumulés.
+     */
+    public void fermerHistorique() {
+        if (historique != null) {
+            historique.fermer(ConfigReader.getIntProperty("historique.compaction.seuil", 8),
+                    ConfigReader.getIntProperty("historique.retention.jours", 90));
         }
     }
 
-    public String getPlateforme() {
-        return plateforme;
-    }
-
-    public void setPlateforme(String plateforme) {
-        this.plateforme = plateforme;
-    }
-
-    public String getResultatAttendu() {
-        return resultatAttendu;
-    }
-
-    public void setResultatAttendu(String resultatAttendu) {
-        this.resultatAttendu = resultatAttendu;
-    }
-
-    public String getResultatReel() {
-        return resultatReel;
-    }
-
-    public void setResultatReel(String resultatReel) {
-        this.resultatReel = resultatReel;
-    }
-
-    public String getUrl() {
-        return url;
-    }
-
-    public void setUrl(String url) {
-        this.url = url;
-    }
-
-    public String getMessageErreur() {
-        return messageErreur;
+    public void enregistrerDureeScenario(String nomScenario, long dureeNanos) {
+        dureesParScenario.computeIfAbsent(Objects.toString(nomScenario, ""), k -> new HistogrammeDurees())
+                .enregistrer(dureeNanos);
     }
 
-    public void setMessageErreur(String messageErreur) {
-        this.messageErreur = messageErreur;
-        if (messageErreur != null) {
-            analyzeError(messageErreur);
-        }
+    /**
+     * Scénario terminé : ses clés de doublon et sa dernière étape sont oubliées, la mémoire reste
+     * bornée par les scénarios en cours (rapport en streaming compris).
+     */
+    public void terminerScenario(String nomScenario) {
+        String cle = Objects.toString(nomScenario, "");
+        indexEtapes.remove(cle);
+        derniereEtapeParScenario.remove(cle);
     }
 
-    // Test adımı ekleme ve analiz
-    public void ajouterInfosTest(TestManager testInfo) {
-        if (testInfo == null) return;
-
-        boolean isDuplicate = rapportsTests.stream()
-                .anyMatch(existing -> isSameStep(existing, testInfo));
-
-        if (!isDuplicate) {
-            testInfo.dateExecution = LocalDateTime.now();
-            rapportsTests.add(testInfo);
-            updateAnalysis(testInfo);
-            suggestNextSteps(testInfo);
+    /**
+     * Écrit la table des transitions (suggestions.persistance=true) pour les exécutions suivantes.
+     */
+    public void sauvegarderTransitions() {
+        if (TRANSITIONS_PERSISTANTES) {
+            transitions.sauvegarder(TRANSITIONS_FICHIER);
         }
     }
 
     // Dinamik test analizi
-    private void updateAnalysis(TestManager testInfo) {
+    private void updateAnalysis(InfosEtape testInfo) {
         // Step pattern analizi
-        stepPatterns.merge(testInfo.getNomEtape(), 1, Integer::sum);
+        updateStepPattern(testInfo.getNomEtape());
+
+        // Compteurs et bornes de dates
+        totalEtapes.increment();
+        if ("REUSSI".equalsIgnoreCase(testInfo.getStatut())) {
+            etapesReussies.increment();
+            // Trois exemples réussis par type d'étape suffisent pour l'analyse des échecs
+            Queue<InfosEtape> exemples = exemplesReussis.computeIfAbsent(
+                    getStepType(testInfo.getNomEtape()), k -> new ConcurrentLinkedQueue<>());
+            if (exemples.size() < 3) {
+                exemples.offer(testInfo);
+            }
+        } else if ("ECHEC".equalsIgnoreCase(testInfo.getStatut())) {
+            etapesEchouees.increment();
+        }
+        if (testInfo.getNomEtape() != null && testInfo.getDureeNanos() > 0) {
+            dureesParEtape.computeIfAbsent(testInfo.getNomEtape(), k -> new HistogrammeDurees())
+                    .enregistrer(testInfo.getDureeNanos());
+        }
+        LocalDateTime date = testInfo.getDateExecution();
+        premiereDate.accumulateAndGet(date, (a, b) -> a == null || b.isBefore(a) ? b : a);
+        derniereDate.accumulateAndGet(date, (a, b) -> a == null || b.isAfter(a) ? b : a);
 
         // Başarı oranı analizi
-        int totalTests = rapportsTests.size();
-        long successCount = rapportsTests.stream()
-                .filter(t -> "REUSSI".equalsIgnoreCase(t.getStatut()))
-                .count();
-
-        double successRate = (successCount * 100.0) / totalTests;
+        long totalTests = totalEtapes.sum();
+        double successRate = (etapesReussies.sum() * 100.0) / totalTests;
 
         // Analiz sonuçlarını kaydet
         analysisResults.put("success_rate", String.format("%.1f%%", successRate));
+        analysisResults.put("total_steps", String.valueOf(totalTests));
+        analysisResults.put("passed_steps", String.valueOf(etapesReussies.sum()));
+        analysisResults.put("failed_steps", String.valueOf(etapesEchouees.sum()));
         analysisResults.put("most_used_step", getMostUsedStep());
         analysisResults.put("test_duration", calculateTestDuration());
     }
 
     // Dinamik sonraki adım önerisi
-    private void suggestNextSteps(TestManager currentTest) {
+    private List<String> suggestNextSteps(InfosEtape currentTest) {
         String currentStep = currentTest.getNomEtape().toLowerCase();
         List<String> suggestions = new ArrayList<>();
 
-        // Başarılı test akışlarından öğren
-        Map<String, List<String>> successfulFlows = analyzeSuccessfulFlows();
-
-        if (successfulFlows.containsKey(currentStep)) {
-            suggestions.addAll(successfulFlows.get(currentStep));
-        }
+        // Başarılı test akışlarından öğren (table des transitions, y compris les exécutions précédentes)
+        suggestions.addAll(transitions.suggerer(currentStep, 3));
 
         // Önceden tanımlanmış öneriler
         if (STEP_SUGGESTIONS.containsKey(getStepType(currentStep))) {
             suggestions.addAll(STEP_SUGGESTIONS.get(getStepType(currentStep)));
         }
 
-        // Test geçmişinden öneriler
-        List<String> historicalNextSteps = findHistoricalNextSteps(currentStep);
-        suggestions.addAll(historicalNextSteps);
-
         // Önerileri kaydet
-        testSuggestions.clear();
-        testSuggestions.addAll(suggestions.stream()
+        List<String> topSuggestions = suggestions.stream()
                 .distinct()
                 .limit(3)
-                .collect(Collectors.toList()));
-    }
-
-    // Test akışı analizi
-    private Map<String, List<String>> analyzeSuccessfulFlows() {
-        Map<String, List<String>> flows = new HashMap<>();
-        List<TestManager> successfulTests = rapportsTests.stream()
-                .filter(t -> "REUSSI".equalsIgnoreCase(t.getStatut()))
                 .collect(Collectors.toList());
-
-        for (int i = 0; i < successfulTests.size() - 1; i++) {
-            String currentStep = successfulTests.get(i).getNomEtape().toLowerCase();
-            String nextStep = successfulTests.get(i + 1).getNomEtape();
-
-            flows.computeIfAbsent(currentStep, k -> new ArrayList<>()).add(nextStep);
-        }
-
-        return flows;
-    }
-
-    // Geçmiş test adımlarından öneriler
-    private List<String> findHistoricalNextSteps(String currentStep) {
-        List<String> nextSteps = new ArrayList<>();
-        boolean foundCurrent = false;
-
-        for (TestManager test : rapportsTests) {
-            if (foundCurrent) {
-                nextSteps.add(test.getNomEtape());
-                foundCurrent = false;
-            }
-            if (test.getNomEtape().toLowerCase().equals(currentStep)) {
-                foundCurrent = true;
-            }
-        }
-
-        return nextSteps;
+        testSuggestions = topSuggestions;
+        return topSuggestions;
     }
 
     // Hata analizi ve öneriler
-    private void analyzeFailure() {
-        String stepType = getStepType(nomEtape);
-        String errorType = getErrorType(messageErreur);
+    private void analyzeFailure(InfosEtape etape) {
+        String stepType = getStepType(etape.getNomEtape());
+        String errorType = getErrorType(etape.getMessageErreur());
 
         StringBuilder analysis = new StringBuilder();
         analysis.append("\n🔍 Analyse d'Échec:\n");
@@ -282,7 +324,7 @@ public class TestManager {
         }
 
         // Başarılı örneklerden öğren
-        List<TestManager> similarSuccessfulTests = findSimilarSuccessfulTests(stepType);
+        List<InfosEtape> similarSuccessfulTests = findSimilarSuccessfulTests(stepType);
         if (!similarSuccessfulTests.isEmpty()) {
             analysis.append("\nExemples réussis:\n");
             similarSuccessfulTests.forEach(t ->
@@ -295,12 +337,9 @@ public class TestManager {
     }
 
     // Benzer başarılı testleri bul
-    private List<TestManager> findSimilarSuccessfulTests(String stepType) {
-        return rapportsTests.stream()
-                .filter(t -> "REUSSI".equalsIgnoreCase(t.getStatut()))
-                .filter(t -> getStepType(t.getNomEtape()).equals(stepType))
-                .limit(3)
-                .collect(Collectors.toList());
+    private List<InfosEtape> findSimilarSuccessfulTests(String stepType) {
+        Queue<InfosEtape> exemples = exemplesReussis.get(stepType);
+        return exemples == null ? Collections.emptyList() : new ArrayList<>(exemples);
     }
 
     // Step tipini belirle
@@ -314,7 +353,7 @@ public class TestManager {
     }
 
     // Hata tipini belirle
-    private String getErrorType(String error) {
+    static String getErrorType(String error) {
         if (error == null) return "unknown";
         error = error.toLowerCase();
         if (error.contains("element") && error.contains("not found")) return "element_not_found";
@@ -325,25 +364,19 @@ public class TestManager {
 
     // Test süresini hesapla
     private String calculateTestDuration() {
-        if (rapportsTests.isEmpty()) return "0s";
-
-        TestManager firstTest = rapportsTests.get(0);
-        TestManager lastTest = rapportsTests.get(rapportsTests.size() - 1);
+        LocalDateTime debut = premiereDate.get();
+        LocalDateTime fin = derniereDate.get();
+        if (debut == null || fin == null) return "0s";
 
-        long seconds = java.time.Duration.between(
-                firstTest.dateExecution,
-                lastTest.dateExecution
-        ).getSeconds();
+        long millis = java.time.Duration.between(debut, fin).toMillis();
 
-        return String.format("%ds", seconds);
+        return String.format("%.3fs", millis / 1000.0);
     }
 
     // En çok kullanılan adımı bul
     private String getMostUsedStep() {
-        return stepPatterns.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("Aucun");
+        Map.Entry<String, Integer> max = etapeLaPlusUtilisee.get();
+        return max != null ? max.getKey() : "Aucun";
     }
 
     // Önerileri al
@@ -356,10 +389,23 @@ public class TestManager {
         String timeStamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
         String fileName = String.format("%s/%s_%s.xlsx", EXCEL_REPORTS_DIR, nomRapport, timeStamp);
 
+        try (FileOutputStream outputStream = new FileOutputStream(fileName)) {
+            ecrireRapport(outputStream);
+            System.out.println("Rapport généré: " + fileName);
+        } catch (IOException e) {
+            System.err.println("Erreur rapport: " + e.getMessage());
+        }
+    }
+
+    // Classeur complet (XSSF) écrit dans le flux donné
+    void ecrireRapport(OutputStream outputStream) throws IOException {
         try (Workbook workbook = new XSSFWorkbook()) {
             // Test sonuçları sayfası
             createTestResultsSheet(workbook.createSheet("Résultats des Tests"));
 
+            // Süre sayfası
+            createDurationsSheet(workbook.createSheet("Durées"));
+
             // Analiz sayfası
             createAnalysisSheet(workbook.createSheet("Analyse"));
 
@@ -367,62 +413,206 @@ public class TestManager {
             createSuggestionsSheet(workbook.createSheet("Suggestions"));
 
             // Kaydet
-            try (FileOutputStream outputStream = new FileOutputStream(fileName)) {
-                workbook.write(outputStream);
-                System.out.println("Rapport généré: " + fileName);
+            workbook.write(outputStream);
+        }
+    }
+
+    public boolean isRapportStreaming() {
+        return rapportStreaming;
+    }
+
+    // Streaming raporu: her adım bitince tek satır eklenir
+    private void ajouterLigneStreaming(InfosEtape info) {
+        synchronized (verrouStreaming) {
+            if (rapportFinalise.get()) {
+                System.err.println("Rapport déjà finalisé, étape ignorée: " + info.getNomEtape());
+                return;
             }
-        } catch (IOException e) {
-            System.err.println("Erreur rapport: " + e.getMessage());
+            if (workbookStreaming == null) {
+                workbookStreaming = new SXSSFWorkbook(FENETRE_LIGNES_STREAMING);
+                workbookStreaming.setCompressTempFiles(true);
+                feuilleStreaming = workbookStreaming.createSheet("Résultats des Tests");
+                writeResultsHeader(feuilleStreaming);
+                successStyleStreaming = createSuccessStyle(workbookStreaming);
+                failureStyleStreaming = createFailureStyle(workbookStreaming);
+                ligneStreaming = 1;
+            }
+            writeResultRow(feuilleStreaming.createRow(ligneStreaming++), info,
+                    successStyleStreaming, failureStyleStreaming);
+        }
+    }
+
+    /**
+     * Écrit le rapport streaming sur disque. Appelé en fin d'exécution (@AfterAll) et par le
+     * shutdown hook de la JVM ; seul le premier appel produit le fichier.
+     */
+    public void finaliserRapport() {
+        if (!rapportStreaming || !rapportFinalise.compareAndSet(false, true)) return;
+
+        synchronized (verrouStreaming) {
+            if (workbookStreaming == null) return;
+
+            String timeStamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
+            String fileName = String.format("%s/%s_%s.xlsx", EXCEL_REPORTS_DIR, RAPPORT_NOM, timeStamp);
+
+            try {
+                createDurationsSheet(workbookStreaming.createSheet("Durées"));
+                createAnalysisSheet(workbookStreaming.createSheet("Analyse"));
+                createSuggestionsSheet(workbookStreaming.createSheet("Suggestions"));
+
+                try (FileOutputStream outputStream = new FileOutputStream(fileName)) {
+                    workbookStreaming.write(outputStream);
+                    System.out.println("Rapport généré: " + fileName);
+                }
+            } catch (IOException e) {
+                System.err.println("Erreur rapport: " + e.getMessage());
+            } finally {
+                // Fichiers temporaires SXSSF
+                workbookStreaming.dispose();
+                workbookStreaming = null;
+            }
+        }
+    }
+
+    /**
+     * Concatène la feuille "Résultats des Tests" de plusieurs rapports (un par shard) dans un seul classeur.
+     * Les feuilles de synthèse (durées, analyse) sont propres à chaque exécution et ne sont pas reprises.
+     */
+    public static void fusionnerRapports(List<Path> rapports, Path sortie) throws IOException {
+        SXSSFWorkbook fusion = new SXSSFWorkbook(FENETRE_LIGNES_STREAMING);
+        try {
+            Sheet feuille = fusion.createSheet("Résultats des Tests");
+            writeResultsHeader(feuille);
+            CellStyle successStyle = createSuccessStyle(fusion);
+            CellStyle failureStyle = createFailureStyle(fusion);
+            DataFormatter formatteur = new DataFormatter();
+            int ligne = 1;
+            for (Path rapport : rapports) {
+                try (Workbook source = WorkbookFactory.create(rapport.toFile(), null, true)) {
+                    Sheet resultats = source.getSheet("Résultats des Tests");
+                    if (resultats == null) continue;
+                    for (Row row : resultats) {
+                        if (row.getRowNum() == 0) continue;
+                        Row copie = feuille.createRow(ligne++);
+                        for (Cell cell : row) {
+                            // Les cellules numériques (durée en ms) restent numériques pour le tri et les formules
+                            if (cell.getCellType() == CellType.NUMERIC) {
+                                copie.createCell(cell.getColumnIndex()).setCellValue(cell.getNumericCellValue());
+                            } else {
+                                copie.createCell(cell.getColumnIndex()).setCellValue(formatteur.formatCellValue(cell));
+                            }
+                        }
+                        Cell statut = copie.getCell(2);
+                        if (statut != null && "REUSSI".equalsIgnoreCase(statut.getStringCellValue())) {
+                            statut.setCellStyle(successStyle);
+                        } else if (statut != null && "ECHEC".equalsIgnoreCase(statut.getStringCellValue())) {
+                            statut.setCellStyle(failureStyle);
+                        }
+                    }
+                }
+            }
+            if (sortie.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(sortie.toAbsolutePath().getParent());
+            }
+            try (OutputStream outputStream = Files.newOutputStream(sortie)) {
+                fusion.write(outputStream);
+            }
+            System.out.println("Rapport fusionné: " + sortie + " (" + (ligne - 1) + " ligne(s))");
+        } finally {
+            fusion.dispose();
+            fusion.close();
         }
     }
 
     // Excel sayfalarını oluşturma metodları
     private void createTestResultsSheet(Sheet sheet) {
-        CellStyle headerStyle = createHeaderStyle(sheet.getWorkbook());
         CellStyle successStyle = createSuccessStyle(sheet.getWorkbook());
         CellStyle failureStyle = createFailureStyle(sheet.getWorkbook());
 
-        // Başlık satırı
+        writeResultsHeader(sheet);
+
+        // Test verileri
+        int rowNum = 1;
+        for (InfosEtape info : rapportsTests) {
+            writeResultRow(sheet.createRow(rowNum++), info, successStyle, failureStyle);
+        }
+    }
+
+    // Başlık satırı
+    private static void writeResultsHeader(Sheet sheet) {
+        CellStyle headerStyle = createHeaderStyle(sheet.getWorkbook());
         Row headerRow = sheet.createRow(0);
-        String[] columns = {
-                "Scénario", "Étape", "Statut", "Plateforme",
-                "Résultat Attendu", "Résultat Réel", "URL",
-                "Message d'Erreur", "Date d'Exécution", "Durée"
-        };
 
-        for (int i = 0; i < columns.length; i++) {
+        for (int i = 0; i < RESULT_COLUMNS.length; i++) {
             Cell cell = headerRow.createCell(i);
-            cell.setCellValue(columns[i]);
+            cell.setCellValue(RESULT_COLUMNS[i]);
             cell.setCellStyle(headerStyle);
             sheet.setColumnWidth(i, 6000);
         }
+    }
 
-        // Test verileri
-        int rowNum = 1;
-        for (TestManager info : rapportsTests) {
-            Row row = sheet.createRow(rowNum++);
+    private void writeResultRow(Row row, InfosEtape info, CellStyle successStyle, CellStyle failureStyle) {
+        row.createCell(0).setCellValue(info.getNomScenario() != null ? info.getNomScenario() : "");
+        row.createCell(1).setCellValue(info.getNomEtape() != null ? info.getNomEtape() : "");
 
-            row.createCell(0).setCellValue(info.getNomScenario() != null ? info.getNomScenario() : "");
-            row.createCell(1).setCellValue(info.getNomEtape() != null ? info.getNomEtape() : "");
+        Cell statutCell = row.createCell(2);
+        statutCell.setCellValue(info.getStatut() != null ? info.getStatut() : "");
 
-            Cell statutCell = row.createCell(2);
-            statutCell.setCellValue(info.getStatut() != null ? info.getStatut() : "");
+        if ("REUSSI".equalsIgnoreCase(info.getStatut())) {
+            statutCell.setCellStyle(successStyle);
+        } else if ("ECHEC".equalsIgnoreCase(info.getStatut())) {
+            statutCell.setCellStyle(failureStyle);
+        }
 
-            if ("REUSSI".equalsIgnoreCase(info.getStatut())) {
-                statutCell.setCellStyle(successStyle);
-            } else if ("ECHEC".equalsIgnoreCase(info.getStatut())) {
-                statutCell.setCellStyle(failureStyle);
-            }
+        row.createCell(3).setCellValue(info.getPlateforme() != null ? info.getPlateforme() : "");
+        row.createCell(4).setCellValue(info.getResultatAttendu() != null ? info.getResultatAttendu() : "");
+        row.createCell(5).setCellValue(info.getResultatReel() != null ? info.getResultatReel() : "");
+        row.createCell(6).setCellValue(info.getUrl() != null ? info.getUrl() : "");
+        row.createCell(7).setCellValue(info.getMessageErreur() != null ? info.getMessageErreur() : "");
+        row.createCell(8).setCellValue(
+                info.getDateExecution().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
+        );
+        if (info.getDureeNanos() > 0) {
+            row.createCell(9).setCellValue(info.getDureeNanos() / 1_000_000.0);
+        }
+    }
 
-            row.createCell(3).setCellValue(info.getPlateforme() != null ? info.getPlateforme() : "");
-            row.createCell(4).setCellValue(info.getResultatAttendu() != null ? info.getResultatAttendu() : "");
-            row.createCell(5).setCellValue(info.getResultatReel() != null ? info.getResultatReel() : "");
-            row.createCell(6).setCellValue(info.getUrl() != null ? info.getUrl() : "");
-            row.createCell(7).setCellValue(info.getMessageErreur() != null ? info.getMessageErreur() : "");
-            row.createCell(8).setCellValue(
-                    info.dateExecution.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
-            );
+    // Percentiles de durée par étape et par scénario
+    private void createDurationsSheet(Sheet sheet) {
+        CellStyle headerStyle = createHeaderStyle(sheet.getWorkbook());
+        String[] columns = {"Type", "Nom", "Exécutions", "p50 (ms)", "p90 (ms)", "p99 (ms)", "Max (ms)"};
+
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < columns.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(columns[i]);
+            cell.setCellStyle(headerStyle);
+            sheet.setColumnWidth(i, i == 1 ? 15000 : 4000);
+        }
+
+        int rowNum = 1;
+        rowNum = addDurationRows(sheet, rowNum, "Étape", dureesParEtape);
+        addDurationRows(sheet, rowNum, "Scénario", dureesParScenario);
+    }
+
+    // Les plus lents (p90) en premier
+    private int addDurationRows(Sheet sheet, int startRow, String type, Map<String, HistogrammeDurees> durees) {
+        List<Map.Entry<String, HistogrammeDurees>> tries = new ArrayList<>(durees.entrySet());
+        tries.sort((a, b) -> Double.compare(b.getValue().percentileMillis(90), a.getValue().percentileMillis(90)));
+
+        int rowNum = startRow;
+        for (Map.Entry<String, HistogrammeDurees> entry : tries) {
+            HistogrammeDurees histogramme = entry.getValue();
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(type);
+            row.createCell(1).setCellValue(entry.getKey());
+            row.createCell(2).setCellValue(histogramme.getNombre());
+            row.createCell(3).setCellValue(histogramme.percentileMillis(50));
+            row.createCell(4).setCellValue(histogramme.percentileMillis(90));
+            row.createCell(5).setCellValue(histogramme.percentileMillis(99));
+            row.createCell(6).setCellValue(histogramme.getMaxMillis());
         }
+        return rowNum;
     }
 
     private void createAnalysisSheet(Sheet sheet) {
@@ -435,6 +625,9 @@ public class TestManager {
         titleCell.setCellValue("Statistiques Générales");
         titleCell.setCellStyle(headerStyle);
 
+        rowNum = addAnalysisSection(sheet, rowNum, "Étapes Exécutées", analysisResults.get("total_steps"));
+        rowNum = addAnalysisSection(sheet, rowNum, "Étapes Réussies", analysisResults.get("passed_steps"));
+        rowNum = addAnalysisSection(sheet, rowNum, "Étapes Échouées", analysisResults.get("failed_steps"));
         rowNum = addAnalysisSection(sheet, rowNum, "Taux de Réussite", analysisResults.get("success_rate"));
         rowNum = addAnalysisSection(sheet, rowNum, "Étape la Plus Utilisée", analysisResults.get("most_used_step"));
         rowNum = addAnalysisSection(sheet, rowNum, "Durée Totale", analysisResults.get("test_duration"));
@@ -472,11 +665,12 @@ public class TestManager {
         rowNum++; // Boş satır
 
         // Test önerileri
-        if (!testSuggestions.isEmpty()) {
+        List<String> suggestions = testSuggestions;
+        if (!suggestions.isEmpty()) {
             Row suggestionsTitle = sheet.createRow(rowNum++);
             suggestionsTitle.createCell(0).setCellValue("Prochaines Étapes Suggérées:");
 
-            for (String suggestion : testSuggestions) {
+            for (String suggestion : suggestions) {
                 Row row = sheet.createRow(rowNum++);
                 row.createCell(0).setCellValue("• " + suggestion);
             }
@@ -506,7 +700,7 @@ public class TestManager {
     }
 
     // Excel stil metodları
-    private CellStyle createHeaderStyle(Workbook workbook) {
+    private static CellStyle createHeaderStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         Font font = workbook.createFont();
         font.setBold(true);
@@ -516,30 +710,31 @@ public class TestManager {
         return style;
     }
 
-    private CellStyle createSuccessStyle(Workbook workbook) {
+    private static CellStyle createSuccessStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         style.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
         style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
         return style;
     }
 
-    private CellStyle createFailureStyle(Workbook workbook) {
+    private static CellStyle createFailureStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         style.setFillForegroundColor(IndexedColors.ROSE.getIndex());
         style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
         return style;
     }
 
-    // Test adımlarının aynı olup olmadığını kontrol et
-    private boolean isSameStep(TestManager existing, TestManager newInfo) {
-        return Objects.equals(existing.getNomEtape(), newInfo.getNomEtape()) &&
-                Objects.equals(existing.getNomScenario(), newInfo.getNomScenario()) &&
-                Objects.equals(existing.getUrl(), newInfo.getUrl());
+    // Clé de doublon d'une étape dans son scénario (Arrays.asList accepte les valeurs nulles)
+    private List<String> cleEtape(InfosEtape info) {
+        return Arrays.asList(info.getNomEtape(), info.getUrl());
     }
     // Step pattern'lerini güncelle
     private void updateStepPattern(String stepName) {
         if (stepName != null) {
-            stepPatterns.merge(stepName, 1, Integer::sum);
+            int count = stepPatterns.merge(stepName, 1, Integer::sum);
+            Map.Entry<String, Integer> candidat = Map.entry(stepName, count);
+            etapeLaPlusUtilisee.accumulateAndGet(candidat,
+                    (actuel, nouveau) -> actuel == null || nouveau.getValue() > actuel.getValue() ? nouveau : actuel);
 
             // En sık kullanılan step'leri analiz et
             if (stepPatterns.get(stepName) > 5) {
@@ -551,7 +746,8 @@ public class TestManager {
     }
 
     // Hata analizi yap
-    private void analyzeError(String error) {
+    void analyzeError(InfosEtape etape) {
+        String error = etape.getMessageErreur();
         if (error == null) return;
 
         // Hata tipini belirle
@@ -575,7 +771,7 @@ public class TestManager {
         }
 
         // Benzer başarılı testleri bul
-        List<TestManager> similarSuccessfulTests = findSimilarSuccessfulTests(getStepType(nomEtape));
+        List<InfosEtape> similarSuccessfulTests = findSimilarSuccessfulTests(getStepType(etape.getNomEtape()));
         if (!similarSuccessfulTests.isEmpty()) {
             analysis.append("\nExemples de tests réussis similaires:\n");
             similarSuccessfulTests.forEach(t ->
@@ -606,7 +802,7 @@ public class TestManager {
     // Yardımcı metodlar
     private List<String> getStepHistory(String currentStep) {
         return rapportsTests.stream()
-                .map(TestManager::getNomEtape)
+                .map(InfosEtape::getNomEtape)
                 .filter(step -> !step.equals(currentStep))
                 .distinct()
                 .collect(Collectors.toList());
@@ -628,7 +824,7 @@ public class TestManager {
         // Son başarılı adımlardan öneriler
         rapportsTests.stream()
                 .filter(t -> "REUSSI".equalsIgnoreCase(t.getStatut()))
-                .map(TestManager::getNomEtape)
+                .map(InfosEtape::getNomEtape)
                 .distinct()
                 .limit(3)
                 .forEach(suggestions::add);
@@ -642,8 +838,7 @@ public class TestManager {
                             .collect(Collectors.joining(", ")));
         }
 
-        testSuggestions.clear();
-        testSuggestions.addAll(suggestions);
+        testSuggestions = suggestions;
     }
 }
 
@@ -0,0 +1,115 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Table des transitions entre étapes : pour chaque étape, combien de fois chaque étape suivante
+ * a réussi ou échoué. Mise à jour en O(1) par étape, interrogée pour les k meilleures suites.
+ */
+public class TransitionsEtapes {
+
+    private static class Compteurs {
+        final LongAdder succes = new LongAdder();
+        final LongAdder echecs = new LongAdder();
+    }
+
+    // étape (minuscule) -> étape suivante -> compteurs
+    private final Map<String, Map<String, Compteurs>> transitions = new ConcurrentHashMap<>();
+
+    public void enregistrer(String etape, String suivante, boolean succes) {
+        if (etape == null || suivante == null) return;
+        ajouter(etape, suivante, succes ? 1 : 0, succes ? 0 : 1);
+    }
+
+    /**
+     * Étapes qui ont le plus souvent réussi après {@code etape} ; à égalité, les moins souvent en échec.
+     */
+    public List<String> suggerer(String etape, int k) {
+        Map<String, Compteurs> suivantes = transitions.get(etape.toLowerCase());
+        if (suivantes == null) return List.of();
+
+        return suivantes.entrySet().stream()
+                .filter(e -> e.getValue().succes.sum() > 0)
+                .sorted(Comparator.<Map.Entry<String, Compteurs>>comparingLong(e -> -e.getValue().succes.sum())
+                        .thenComparingLong(e -> e.getValue().echecs.sum()))
+                .limit(k)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    public int taille() {
+        return transitions.values().stream().mapToInt(Map::size).sum();
+    }
+
+    // Format : une ligne par transition, "etape<TAB>suivante<TAB>succes<TAB>echecs"
+    public void charger(Path fichier) {
+        if (!Files.exists(fichier)) return;
+        try (BufferedReader reader = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            String ligne;
+            while ((ligne = reader.readLine()) != null) {
+                String[] champs = ligne.split("\t");
+                if (champs.length != 4) continue;
+                ajouter(decoder(champs[0]), decoder(champs[1]),
+                        Long.parseLong(champs[2]), Long.parseLong(champs[3]));
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Historique des transitions illisible (" + fichier + "): " + e.getMessage());
+        }
+    }
+
+    public void sauvegarder(Path fichier) {
+        try {
+            if (fichier.getParent() != null) {
+                Files.createDirectories(fichier.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Map<String, Compteurs>> etape : transitions.entrySet()) {
+                    for (Map.Entry<String, Compteurs> suivante : etape.getValue().entrySet()) {
+                        writer.write(encoder(etape.getKey()) + "\t" + encoder(suivante.getKey()) + "\t"
+                                + suivante.getValue().succes.sum() + "\t" + suivante.getValue().echecs.sum());
+                        writer.newLine();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Erreur sauvegarde des transitions: " + e.getMessage());
+        }
+    }
+
+    private void ajouter(String etape, String suivante, long succes, long echecs) {
+        Compteurs compteurs = transitions
+                .computeIfAbsent(etape.toLowerCase(), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(suivante, k -> new Compteurs());
+        compteurs.succes.add(succes);
+        compteurs.echecs.add(echecs);
+    }
+
+    static String encoder(String valeur) {
+        return valeur.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    static String decoder(String valeur) {
+        StringBuilder sb = new StringBuilder(valeur.length());
+        for (int i = 0; i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            if (c == '\\' && i + 1 < valeur.length()) {
+                char suivant = valeur.charAt(++i);
+                sb.append(suivant == 't' ? '\t' : suivant == 'n' ? '\n' : suivant);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,214 @@
+package utils;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pool de sessions WebDriver réutilisées d'un scénario à l'autre.
+ * Une session rendue est nettoyée (cookies, storage, about:blank) puis remise dans le pool : sur Chrome,
+ * via DevTools pour toutes les origines visitées, ailleurs par JavaScript pour la seule origine courante ;
+ * une session qui ne répond plus est fermée et remplacée à la demande.
+ */
+public class WebDriverPool {
+    private static final String SCRIPT_NETTOYAGE =
+            "try { window.localStorage.clear(); } catch (e) {}" +
+            "try { window.sessionStorage.clear(); } catch (e) {}";
+
+    private final Supplier<WebDriver> fabrique;
+    private final int tailleMin;
+    private final int tailleMax;
+    private final long attenteMaxMillis;
+
+    private final LinkedBlockingDeque<WebDriver> sessionsLibres = new LinkedBlockingDeque<>();
+    private final AtomicInteger sessionsCreees = new AtomicInteger();
+
+    // Statistiques
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong emprunts = new AtomicLong();
+    private final AtomicLong latenceTotaleNanos = new AtomicLong();
+    private final AtomicLong latenceMaxNanos = new AtomicLong();
+
+    public WebDriverPool(Supplier<WebDriver> fabrique, int tailleMin, int tailleMax, long attenteMaxMillis) {
+        if (tailleMax < 1 || tailleMin < 0 || tailleMin > tailleMax) {
+            throw new IllegalArgumentException("Taille de pool invalide: min=" + tailleMin + ", max=" + tailleMax);
+        }
+        this.fabrique = fabrique;
+        this.tailleMin = tailleMin;
+        this.tailleMax = tailleMax;
+        this.attenteMaxMillis = attenteMaxMillis;
+    }
+
+    /**
+     * Démarre les sessions minimales avant le premier scénario.
+     */
+    public void prechauffer() {
+        while (sessionsCreees.get() < tailleMin) {
+            WebDriver driver = creerSiPossible();
+            if (driver == null) break;
+            sessionsLibres.offerLast(driver);
+        }
+    }
+
+    public WebDriver emprunter() {
+        long debut = System.nanoTime();
+        long echeance = debut + TimeUnit.MILLISECONDS.toNanos(attenteMaxMillis);
+        try {
+            while (true) {
+                // Session chaude disponible
+                WebDriver driver;
+                while ((driver = sessionsLibres.pollFirst()) != null) {
+                    if (estSaine(driver)) {
+                        hits.incrementAndGet();
+                        return driver;
+                    }
+                    detruire(driver);
+                }
+
+                // Pas de session libre : en créer une si le maximum n'est pas atteint
+                driver = creerSiPossible();
+                if (driver != null) {
+                    misses.incrementAndGet();
+                    return driver;
+                }
+
+                // Pool plein : attendre qu'un scénario rende sa session, dans le délai restant
+                long restant = echeance - System.nanoTime();
+                driver = restant > 0 ? sessionsLibres.pollFirst(restant, TimeUnit.NANOSECONDS) : null;
+                if (driver == null) {
+                    throw new IllegalStateException("Aucune session WebDriver disponible après " + attenteMaxMillis + " ms");
+                }
+                if (estSaine(driver)) {
+                    hits.incrementAndGet();
+                    return driver;
+                }
+                // Session rendue hors d'usage : sa place est libre, nouvelle tentative sans relancer l'attente
+                detruire(driver);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente d'une session WebDriver interrompue", e);
+        } finally {
+            long latence = System.nanoTime() - debut;
+            emprunts.incrementAndGet();
+            latenceTotaleNanos.addAndGet(latence);
+            latenceMaxNanos.accumulateAndGet(latence, Math::max);
+        }
+    }
+
+    /**
+     * Remet la session dans le pool après l'avoir nettoyée. Si le nettoyage échoue,
+     * la session est fermée.
+     */
+    public void rendre(WebDriver driver) {
+        if (driver == null) return;
+        try {
+            reinitialiser(driver);
+            sessionsLibres.offerFirst(driver);
+        } catch (Exception e) {
+            System.err.println("Session WebDriver non réutilisable, fermeture: " + e.getMessage());
+            detruire(driver);
+        }
+    }
+
+    public void fermer() {
+        WebDriver driver;
+        while ((driver = sessionsLibres.pollFirst()) != null) {
+            detruire(driver);
+        }
+    }
+
+    private WebDriver creerSiPossible() {
+        while (true) {
+            int actuel = sessionsCreees.get();
+            if (actuel >= tailleMax) return null;
+            if (sessionsCreees.compareAndSet(actuel, actuel + 1)) break;
+        }
+        try {
+            return fabrique.get();
+        } catch (RuntimeException e) {
+            sessionsCreees.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void reinitialiser(WebDriver driver) {
+        if (!effacerParDevTools(driver)) {
+            driver.manage().deleteAllCookies();
+            if (driver instanceof JavascriptExecutor) {
+                ((JavascriptExecutor) driver).executeScript(SCRIPT_NETTOYAGE);
+            }
+        }
+        driver.get("about:blank");
+    }
+
+    // Chrome : cookies et stockage de toutes les origines, sur la connexion DevTools de la session
+    private boolean effacerParDevTools(WebDriver driver) {
+        if (!(driver instanceof ChromeDriver)) return false;
+        try {
+            DevTools devTools = ((ChromeDriver) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            devTools.send(new Command<>("Network.clearBrowserCookies", Map.of()));
+            devTools.send(new Command<>("Storage.clearDataForOrigin", Map.of("origin", "*", "storageTypes", "all")));
+            return true;
+        } catch (Exception e) {
+            System.err.println("Nettoyage DevTools indisponible, repli JavaScript: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean estSaine(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void detruire(WebDriver driver) {
+        sessionsCreees.decrementAndGet();
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            System.err.println("Erreur lors de la fermeture du driver: " + e.getMessage());
+        }
+    }
+
+    // Statistiques du pool
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getLatenceMoyenneMillis() {
+        long n = emprunts.get();
+        return n == 0 ? 0 : latenceTotaleNanos.get() / (n * 1_000_000.0);
+    }
+
+    public double getLatenceMaxMillis() {
+        return latenceMaxNanos.get() / 1_000_000.0;
+    }
+
+    public int getSessionsOuvertes() {
+        return sessionsCreees.get();
+    }
+
+    public String resume() {
+        return String.format("Pool WebDriver: %d hit(s), %d miss(es), emprunt moyen %.1f ms, max %.1f ms, %d session(s) ouvertes",
+                getHits(), getMisses(), getLatenceMoyenneMillis(), getLatenceMaxMillis(), getSessionsOuvertes());
+    }
+}